@@ -1,17 +1,20 @@
 package com.googlecode.jslint4java.ant;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
@@ -19,13 +22,22 @@ import org.apache.tools.ant.Task;
 import org.apache.tools.ant.taskdefs.LogOutputStream;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.resources.FileProvider;
 import org.apache.tools.ant.types.resources.Union;
 
 import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBatch;
 import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintPool;
 import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintLimits;
+import com.googlecode.jslint4java.LintOptions;
+import com.googlecode.jslint4java.LintSource;
+import com.googlecode.jslint4java.LintSummary;
 import com.googlecode.jslint4java.Option;
-import com.googlecode.jslint4java.UnicodeBomInputStream;
+import com.googlecode.jslint4java.ResultCache;
+import com.googlecode.jslint4java.ResultDetail;
+import com.googlecode.jslint4java.SourceLoader;
 
 /**
  * Run {@link JSLint} over a tree of files in order to pick holes in your
@@ -55,6 +67,9 @@ import com.googlecode.jslint4java.UnicodeBomInputStream;
  * <h3>Attributes</h3>
  *
  * <dl>
+ * <dt><code>cacheDir</code></dt>
+ * <dd>Optional. A directory in which to keep results between builds, so that
+ * unchanged files aren't linted again. No default.</dd>
  * <dt><code>encoding</code></dt>
  * <dd>Optional. The encoding of the JavaScript files. Defaults to system
  * encoding.</dd>
@@ -63,6 +78,15 @@ import com.googlecode.jslint4java.UnicodeBomInputStream;
  * not pass JSLint. Defaults to true.</dd>
  * <dt><code>options</code></dt>
  * <dd>Optional. A comma separated list of {@link Option} names. No default.</dd>
+ * <dt><code>summary</code></dt>
+ * <dd>Optional. Log where the time went once linting has finished, including
+ * the slowest files. Defaults to false.</dd>
+ * <dt><code>summarySlowest</code></dt>
+ * <dd>Optional. How many of the slowest files to list in the summary. Defaults
+ * to 10.</dd>
+ * <dt><code>threads</code></dt>
+ * <dd>Optional. How many files to lint at once. Formatters still see the
+ * files in order. Defaults to 1.</dd>
  * <dt><code>timeout</code>
  * <dd>Optional. The maximum amount of time that JSLint can run.
  * </dl>
@@ -73,6 +97,30 @@ import com.googlecode.jslint4java.UnicodeBomInputStream;
  */
 public class JSLintTask extends Task {
 
+    /**
+     * One of our resources, read with our encoding.
+     */
+    private final class ResourceSource extends LintSource {
+        private final SourceLoader loader;
+        private final Resource resource;
+
+        ResourceSource(SourceLoader loader, Resource resource) {
+            super(resource.toString());
+            this.loader = loader;
+            this.resource = resource;
+        }
+
+        @Override
+        protected Reader open() throws IOException {
+            return new StringReader(read());
+        }
+
+        @Override
+        public String read() throws IOException {
+            return readResource(loader, resource);
+        }
+    }
+
     private static final String NO_FILES_TO_LINT = "no files to lint!";
 
     private final Union resources = new Union();
@@ -81,6 +129,8 @@ public class JSLintTask extends Task {
 
     private boolean haltOnFailure = true;
 
+    private File cacheDir = null;
+
     private String encoding = System.getProperty("file.encoding", "UTF-8");
 
     private String failureProperty = null;
@@ -91,6 +141,12 @@ public class JSLintTask extends Task {
 
     private PredefElement predef = null;
 
+    private boolean summary = false;
+
+    private int summarySlowest = LintSummary.DEFAULT_SLOWEST;
+
+    private int threads = 1;
+
     private long timeout = 0;
 
     /**
@@ -121,14 +177,19 @@ public class JSLintTask extends Task {
         this.predef = predef;
     }
 
-    public void applyOptions(JSLint lint) {
+    /**
+     * Add our options to <i>b</i>.
+     *
+     * @return <i>b</i>
+     */
+    private LintOptions.Builder addOptions(LintOptions.Builder b) throws BuildException {
         for (Entry<Option, String> entry : options.entrySet()) {
             String value = entry.getValue();
             try {
                 if (value == null) {
-                    lint.addOption(entry.getKey());
+                    b.addOption(entry.getKey());
                 } else {
-                    lint.addOption(entry.getKey(), value);
+                    b.addOption(entry.getKey(), value);
                 }
             } catch (IllegalArgumentException e) {
                 String optName = entry.getKey().getLowerName();
@@ -139,8 +200,13 @@ public class JSLintTask extends Task {
         // Handle predefs separately. They don't work too well in the options
         // string.
         if (predef != null) {
-            lint.addOption(Option.PREDEF, predef.getText());
+            b.addOption(Option.PREDEF, predef.getText());
         }
+        return b;
+    }
+
+    public void applyOptions(JSLint lint) {
+        lint.setOptions(addOptions(new LintOptions.Builder(lint.getOptions())).build());
     }
 
     /**
@@ -153,31 +219,65 @@ public class JSLintTask extends Task {
             log(NO_FILES_TO_LINT);
         }
 
-        JSLint lint = makeLint();
-        applyOptions(lint);
-
-        for (ResultFormatter rf : formatters) {
-            rf.begin();
+        LintSummary timings = summary ? new LintSummary(summarySlowest) : null;
+        JSLintPool pool = makePool();
+        pool.setOptions(addOptions(new LintOptions.Builder()).build());
+        pool.setResultDetail(resultDetail());
+        if (timings != null) {
+            timings.startupCompleted();
+            pool.setMetrics(timings);
         }
+        SourceLoader loader = makeSourceLoader();
+        ResultCache cache = cacheDir == null ? null : new ResultCache(cacheDir);
 
+        List<LintSource> sources = new ArrayList<LintSource>();
+        for (Resource resource : resources.listResources()) {
+            sources.add(new ResourceSource(loader, resource));
+        }
+        // Formatters see results in resource order, whatever order they finish in.
+        JSLintBatch batch = new JSLintBatch(pool);
+        if (cache != null) {
+            batch.setLinter(cachingLinter(cache));
+        }
         int failedCount = 0;
         int totalErrorCount = 0;
-        for (Resource resource : resources.listResources()) {
-            try {
-                int errorCount = lintStream(lint, resource);
+        try {
+            Iterator<JSLintResult> results = batch.lint(sources);
+
+            for (ResultFormatter rf : formatters) {
+                rf.begin();
+            }
+
+            while (results.hasNext()) {
+                int errorCount = output(results.next());
                 if (errorCount > 0) {
                     totalErrorCount += errorCount;
                     failedCount++;
                 }
-            } catch (IOException e) {
-                throw new BuildException(e);
             }
+        } catch (JSLintBatch.SourceException e) {
+            throw new BuildException(e.getMessage(), e.getCause());
+        } catch (CancellationException e) {
+            throw new BuildException("interrupted", e);
         }
 
         for (ResultFormatter rf : formatters) {
             rf.end();
         }
 
+        if (cache != null) {
+            long total = cache.getHitCount() + cache.getMissCount();
+            log("Reused " + cache.getHitCount() + " of " + total + " results from " + cacheDir,
+                    Project.MSG_VERBOSE);
+        }
+
+        if (timings != null) {
+            timings.finish();
+            for (String line : timings.format().split("\\r?\\n")) {
+                log(line);
+            }
+        }
+
         if (failedCount != 0) {
             String msg = failureMessage(failedCount, totalErrorCount);
             if (haltOnFailure) {
@@ -191,6 +291,18 @@ public class JSLintTask extends Task {
         }
     }
 
+    /**
+     * Lint each source through <i>cache</i>.
+     */
+    private JSLintBatch.Linter cachingLinter(final ResultCache cache) {
+        return new JSLintBatch.Linter() {
+            public JSLintResult lint(JSLint lint, LintSource source, LintLimits limits)
+                    throws IOException {
+                return cache.lint(lint, source.getName(), source.read());
+            }
+        };
+    }
+
     private String failureMessage(int failedCount, int totalErrorCount) {
         return "JSLint: " + totalErrorCount + " " + plural(totalErrorCount, "error") + " in "
                 + failedCount + " " + plural(failedCount, "file");
@@ -204,31 +316,17 @@ public class JSLintTask extends Task {
     }
 
     /**
-     * Lint a given stream. Closes the stream after use.
-     *
-     * @param lint
+     * Pass a result to the formatters.
      *
-     * @throws IOException
+     * @return the number of issues found.
      */
-    private int lintStream(JSLint lint, Resource resource) throws UnsupportedEncodingException,
-            IOException {
-        BufferedReader reader = null;
-        try {
-            UnicodeBomInputStream stream = new UnicodeBomInputStream(resource.getInputStream());
-            stream.skipBOM();
-            reader = new BufferedReader(new InputStreamReader(stream, encoding));
-            String name = resource.toString();
-            JSLintResult result = lint.lint(name, reader);
-            log("Found " + result.getIssues().size() + " issues in " + name, Project.MSG_VERBOSE);
-            for (ResultFormatter rf : formatters) {
-                rf.output(result);
-            }
-            return result.getIssues().size();
-        } finally {
-            if (reader != null) {
-                reader.close();
-            }
+    private int output(JSLintResult result) {
+        log("Found " + result.getIssues().size() + " issues in " + result.getName(),
+                Project.MSG_VERBOSE);
+        for (ResultFormatter rf : formatters) {
+            rf.output(result);
         }
+        return result.getIssues().size();
     }
 
     /**
@@ -250,6 +348,33 @@ public class JSLintTask extends Task {
         }
     }
 
+    /**
+     * Create a new {@link JSLintPool}, with an instance for each thread.
+     */
+    private JSLintPool makePool() throws BuildException {
+        try {
+            JSLintBuilder builder = new JSLintBuilder();
+            if (timeout > 0) {
+                builder.timeout(timeout);
+            }
+            if (jslintSource == null) {
+                return builder.poolFromDefault(threads);
+            } else {
+                return builder.poolFromFile(jslintSource, threads);
+            }
+        } catch (IOException e) {
+            throw new BuildException(e);
+        }
+    }
+
+    private SourceLoader makeSourceLoader() throws BuildException {
+        try {
+            return new SourceLoader(Charset.forName(encoding));
+        } catch (IllegalArgumentException e) {
+            throw new BuildException("unsupported character encoding " + encoding, e);
+        }
+    }
+
     /**
      * Quick and nasty hack to pluralise words. Works enough for my needs.
      */
@@ -257,6 +382,42 @@ public class JSLintTask extends Task {
         return count == 1 ? word : word + "s";
     }
 
+    /**
+     * Read the whole of <i>resource</i>. Files can be read directly, which is quicker.
+     */
+    private String readResource(SourceLoader loader, Resource resource) throws IOException {
+        FileProvider fp = resource.as(FileProvider.class);
+        if (fp != null) {
+            return loader.load(fp.getFile());
+        }
+        InputStream in = resource.getInputStream();
+        try {
+            return loader.load(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * How much detail do our formatters need? Only the HTML report needs more than the issues.
+     */
+    private ResultDetail resultDetail() {
+        for (ResultFormatter rf : formatters) {
+            if (rf instanceof ReportResultFormatter) {
+                return ResultDetail.FULL_REPORT;
+            }
+        }
+        return ResultDetail.ISSUES_ONLY;
+    }
+
+    /**
+     * Keep results in <i>cacheDir</i>, so that files which haven't changed since the last build
+     * don't have to be linted again. The directory may be shared between builds.
+     */
+    public void setCacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
     /**
      * Set the encoding of the source files that JSLint will read. If not
      * specified, the default is the system encoding (via the
@@ -320,6 +481,33 @@ public class JSLintTask extends Task {
         }
     }
 
+    /**
+     * Log a summary of where the time went once linting has finished: the total time, how much
+     * of it was spent starting JSLint and linting, and the slowest files. Defaults to false.
+     */
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
+    /** How many of the slowest files to list in the summary. Defaults to 10. */
+    public void setSummarySlowest(int summarySlowest) {
+        if (summarySlowest < 0) {
+            throw new BuildException("summarySlowest may not be negative: " + summarySlowest);
+        }
+        this.summarySlowest = summarySlowest;
+    }
+
+    /**
+     * Set how many files to lint at once. Formatters still see the results in the same order.
+     * Defaults to 1.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new BuildException("threads must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
     /** Set the maximum time JSLint can run for in seconds. */
     public void setTimeout(long timeout) {
         this.timeout = timeout;
@@ -0,0 +1,88 @@
+package com.googlecode.jslint4java;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.benchmarks.Corpus;
+
+/**
+ * What does the instruction observer cost? {@link JSLintContextFactory} always runs it, as it
+ * counts the instructions in each {@link JSLintResult}, and enforces {@link LintLimits} and
+ * cancellation. Without it, jslint.js is compiled with no instruction counting at all, which is
+ * what a plain Rhino {@link ContextFactory} does. It lives in jslint4java's own package to get at
+ * {@link JSLintScript}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ObserverBenchmark {
+
+    private static final String JSLINT_JS = "com/googlecode/jslint4java/jslint.js";
+
+    @Param({ "true", "false" })
+    public boolean observer;
+
+    @Param({ "-1", "9" })
+    public int optimizationLevel;
+
+    @Param({ "MEDIUM", "LARGE" })
+    public Corpus corpus;
+
+    private JSLint lint;
+
+    private List<LintSource> sources;
+
+    @Setup
+    public void setUp() throws IOException {
+        ContextFactory factory;
+        if (observer) {
+            factory = new JSLintContextFactory(optimizationLevel);
+        } else {
+            factory = new ContextFactory() {
+                @Override
+                protected void onContextCreated(Context cx) {
+                    cx.setOptimizationLevel(optimizationLevel);
+                    super.onContextCreated(cx);
+                }
+            };
+        }
+        String js = Corpus.LARGE.load().get(0).read();
+        Context cx = factory.enterContext();
+        Script script;
+        try {
+            script = cx.compileString(js, JSLINT_JS, 1, null);
+        } finally {
+            Context.exit();
+        }
+        lint = new JSLintScript(script, JSLINT_JS, JSLintScript.digest(js)).newInstance(factory);
+        sources = corpus.load();
+    }
+
+    @Benchmark
+    public int lint() throws IOException {
+        int issues = 0;
+        for (LintSource source : sources) {
+            issues += lint.lint(source.getName(), source.read()).getIssues().size();
+        }
+        return issues;
+    }
+}
@@ -0,0 +1,56 @@
+package com.googlecode.jslint4java;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.benchmarks.Corpus;
+
+/**
+ * How long does it take to turn what JSLINT left behind into a {@link JSLintResult}, at each
+ * {@link ResultDetail}? The lint itself is run once, up front, so this measures only the copying
+ * out of issues, {@code JSLINT.data()} and the HTML report. It lives in jslint4java's own package
+ * to get at {@link JSLint#buildResults(String, long, long, long, ResultDetail)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ResultExtractionBenchmark {
+
+    @Param({ "ISSUES_ONLY", "DATA", "FULL_REPORT" })
+    public ResultDetail detail;
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    private JSLint lint;
+
+    private String name;
+
+    @Setup
+    public void setUp() throws IOException {
+        lint = new JSLintBuilder().fromDefault();
+        LintSource source = corpus.load().get(0);
+        name = source.getName();
+        lint.lint(name, source.read());
+    }
+
+    @Benchmark
+    public JSLintResult buildResults() {
+        return lint.buildResults(name, 0, 0, 0, detail);
+    }
+}
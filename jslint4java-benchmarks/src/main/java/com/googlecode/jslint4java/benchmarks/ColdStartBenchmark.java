@@ -0,0 +1,42 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+
+/**
+ * How long does it take a fresh JVM to get hold of its first {@link JSLint}? Each fork makes
+ * exactly one, so class loading and JIT warmup are included, as they would be for the command
+ * line tool.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdStartBenchmark {
+
+    private static final String JSLINT_JS = "com/googlecode/jslint4java/jslint.js";
+
+    /** Uses the classes compiled from jslint.js during the build. */
+    @Benchmark
+    public JSLint precompiledDefault() {
+        return new JSLintBuilder().fromDefault();
+    }
+
+    /** Parses and compiles jslint.js at runtime, as fromDefault() used to. */
+    @Benchmark
+    public JSLint compiledAtRuntime() throws IOException {
+        return new JSLintBuilder().fromClasspathResource(JSLINT_JS);
+    }
+}
@@ -0,0 +1,57 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import com.googlecode.jslint4java.LintSource;
+
+/**
+ * The JavaScript the benchmarks lint. Each corpus is a list of sources, made by
+ * {@link CorpusGenerator} with a fixed seed (or read from the classpath), so that no benchmark
+ * measures the filesystem, and every run lints the same thing.
+ */
+public enum Corpus {
+
+    /** One short, clean file: the sort of thing an editor plugin lints on every save. */
+    SMALL {
+        @Override
+        public List<LintSource> load() {
+            return new CorpusGenerator.Builder().files(1).meanFileSize(500).build().generate();
+        }
+    },
+
+    /** A project's worth of files of varying size, with the occasional issue. */
+    MEDIUM {
+        @Override
+        public List<LintSource> load() {
+            return new CorpusGenerator.Builder().files(20).meanFileSize(4096)
+                    .sizeDistribution(CorpusGenerator.SizeDistribution.LOG_NORMAL)
+                    .issueDensity(0.01).build().generate();
+        }
+    },
+
+    /** As {@link #MEDIUM}, but minified, as third party libraries often are. */
+    MINIFIED {
+        @Override
+        public List<LintSource> load() {
+            return new CorpusGenerator.Builder().files(20).meanFileSize(4096)
+                    .sizeDistribution(CorpusGenerator.SizeDistribution.LOG_NORMAL)
+                    .style(CorpusGenerator.Style.MINIFIED).build().generate();
+        }
+    },
+
+    /** jslint.js itself: one large, realistic file. */
+    LARGE {
+        @Override
+        public List<LintSource> load() throws IOException {
+            return Collections.singletonList(LintSource.fromString("jslint.js",
+                    OptimizationLevelBenchmark.readResource(JSLINT_JS)));
+        }
+    };
+
+    private static final String JSLINT_JS = "com/googlecode/jslint4java/jslint.js";
+
+    /** Make the sources in this corpus. */
+    public abstract List<LintSource> load() throws IOException;
+}
@@ -0,0 +1,375 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.googlecode.jslint4java.LintSource;
+
+/**
+ * Makes up JavaScript to lint, so that performance problems can be reproduced without sharing
+ * real source. The same settings and seed always produce exactly the same files, on any JVM.
+ *
+ * <pre>
+ * List&lt;LintSource&gt; corpus = new CorpusGenerator.Builder()
+ *         .files(200)
+ *         .meanFileSize(4096)
+ *         .sizeDistribution(CorpusGenerator.SizeDistribution.LOG_NORMAL)
+ *         .issueDensity(0.01)
+ *         .seed(42)
+ *         .build()
+ *         .generate();
+ * </pre>
+ *
+ * <p>
+ * Each file is a series of top level functions, whose bodies nest blocks, loops and function
+ * expressions up to the maximum depth. Formatted output follows JSLint's whitespace rules, so
+ * with an issue density of zero it lints clean. Each statement is replaced by one JSLint
+ * complains about (e.g. {@code ==}, {@code ++}, a missing semicolon) with probability
+ * <i>issueDensity</i>.
+ *
+ * <p>
+ * To write a corpus out, for linting with the command line tool:
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.googlecode.jslint4java.benchmarks.CorpusGenerator dir [files [meanFileSize [seed]]]
+ * </pre>
+ */
+public final class CorpusGenerator {
+
+    /**
+     * Allow construction of an immutable {@link CorpusGenerator}.
+     */
+    public static class Builder {
+        private int files = 10;
+        private double issueDensity = 0.0;
+        private int maxDepth = 3;
+        private int meanFileSize = 4096;
+        private long seed = 0;
+        private SizeDistribution sizeDistribution = SizeDistribution.FIXED;
+        private Style style = Style.FORMATTED;
+
+        public CorpusGenerator build() {
+            return new CorpusGenerator(this);
+        }
+
+        /** How many files to make. */
+        public Builder files(int files) {
+            if (files < 0) {
+                throw new IllegalArgumentException("files may not be negative: " + files);
+            }
+            this.files = files;
+            return this;
+        }
+
+        /** The chance of each statement being one that JSLint complains about, from 0 to 1. */
+        public Builder issueDensity(double issueDensity) {
+            if (issueDensity < 0 || issueDensity > 1) {
+                throw new IllegalArgumentException("issue density must be from 0 to 1: "
+                        + issueDensity);
+            }
+            this.issueDensity = issueDensity;
+            return this;
+        }
+
+        /** How deeply blocks may nest inside each top level function. */
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("max depth must be at least 1: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /** The average size of each file, in characters. */
+        public Builder meanFileSize(int meanFileSize) {
+            if (meanFileSize < 1) {
+                throw new IllegalArgumentException("mean file size must be at least 1: "
+                        + meanFileSize);
+            }
+            this.meanFileSize = meanFileSize;
+            return this;
+        }
+
+        /** Where the pseudo random numbers start. */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /** How file sizes vary around the mean. */
+        public Builder sizeDistribution(SizeDistribution sizeDistribution) {
+            if (sizeDistribution == null) {
+                throw new IllegalArgumentException("size distribution may not be null");
+            }
+            this.sizeDistribution = sizeDistribution;
+            return this;
+        }
+
+        /** Whether to lay the source out for people, or squash it. */
+        public Builder style(Style style) {
+            if (style == null) {
+                throw new IllegalArgumentException("style may not be null");
+            }
+            this.style = style;
+            return this;
+        }
+    }
+
+    /** How file sizes vary around the mean. */
+    public enum SizeDistribution {
+        /** Every file is (about) the mean size. */
+        FIXED,
+        /** Anywhere from nothing to twice the mean. */
+        UNIFORM,
+        /** Mostly small files, with a long tail of big ones, as in most real projects. */
+        LOG_NORMAL;
+    }
+
+    /** How the source is laid out. */
+    public enum Style {
+        /** Indented, one statement per line, as JSLint likes it. */
+        FORMATTED,
+        /** No optional whitespace at all. JSLint complains about this unless told not to. */
+        MINIFIED;
+    }
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Spread of the underlying normal distribution, for {@link SizeDistribution#LOG_NORMAL}. */
+    private static final double LOG_NORMAL_SIGMA = 1.0;
+
+    /**
+     * Write a corpus to a directory.
+     *
+     * @param args
+     *            the directory, then optionally the number of files, mean file size and seed.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("usage: CorpusGenerator dir [files [meanFileSize [seed]]]");
+            System.exit(1);
+        }
+        Builder b = new Builder().sizeDistribution(SizeDistribution.LOG_NORMAL);
+        if (args.length > 1) {
+            b.files(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            b.meanFileSize(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            b.seed(Long.parseLong(args[3]));
+        }
+        b.build().writeTo(new File(args[0]));
+    }
+
+    private final int files;
+    private final double issueDensity;
+    private final int maxDepth;
+    private final int meanFileSize;
+    private final long seed;
+    private final SizeDistribution sizeDistribution;
+    private final Style style;
+
+    private CorpusGenerator(Builder b) {
+        files = b.files;
+        issueDensity = b.issueDensity;
+        maxDepth = b.maxDepth;
+        meanFileSize = b.meanFileSize;
+        seed = b.seed;
+        sizeDistribution = b.sizeDistribution;
+        style = b.style;
+    }
+
+    /** Make the whole corpus. Files are named {@code gen0.js}, {@code gen1.js} and so on. */
+    public List<LintSource> generate() {
+        List<LintSource> sources = new ArrayList<LintSource>(files);
+        Random sizes = new Random(seed);
+        for (int i = 0; i < files; i++) {
+            int size = fileSize(sizes);
+            sources.add(LintSource.fromString("gen" + i + ".js", generateFile(i, size)));
+        }
+        return sources;
+    }
+
+    /**
+     * Make the source of file number <i>index</i>, of about <i>size</i> characters. Each file has
+     * its own random numbers, so its contents don't depend on the files before it.
+     */
+    String generateFile(int index, int size) {
+        Random random = new Random(seed * 31 + index);
+        Source src = new Source(style == Style.MINIFIED);
+        for (int f = 0; src.length() < size; f++) {
+            src.line(0, "function gen" + index + "_" + f + "(a, b) {");
+            src.line(1, "'use strict';");
+            src.line(1, "var c = a + b, d = [], i = 0;");
+            statements(random, src, 1, false, 2 + random.nextInt(6));
+            src.line(1, "return d.length > i ? c : d;");
+            src.line(0, "}");
+        }
+        return src.toString();
+    }
+
+    /** Pick a file size from the distribution. */
+    private int fileSize(Random random) {
+        switch (sizeDistribution) {
+        case UNIFORM:
+            return random.nextInt(2 * meanFileSize + 1);
+        case LOG_NORMAL:
+            // Choose mu so that the mean of the distribution is meanFileSize.
+            double mu = Math.log(meanFileSize) - LOG_NORMAL_SIGMA * LOG_NORMAL_SIGMA / 2;
+            return (int) Math.round(Math.exp(mu + LOG_NORMAL_SIGMA * random.nextGaussian()));
+        default:
+            return meanFileSize;
+        }
+    }
+
+    /** Add <i>count</i> statements at <i>depth</i>. */
+    private void statements(Random random, Source src, int depth, boolean inLoop, int count) {
+        for (int i = 0; i < count; i++) {
+            if (random.nextDouble() < issueDensity) {
+                issue(random, src, depth);
+            } else if (depth < maxDepth && random.nextInt(3) == 0) {
+                block(random, src, depth, inLoop);
+            } else {
+                simple(random, src, depth);
+            }
+        }
+    }
+
+    /** A statement which nests more statements. */
+    private void block(Random random, Source src, int depth, boolean inLoop) {
+        int n = random.nextInt(100);
+        int count = 1 + random.nextInt(4);
+        switch (random.nextInt(inLoop ? 2 : 3)) {
+        case 0:
+            src.line(depth, "if (c > " + n + ") {");
+            statements(random, src, depth + 1, inLoop, count);
+            src.line(depth, "} else {");
+            statements(random, src, depth + 1, inLoop, 1);
+            src.line(depth, "}");
+            break;
+        case 1:
+            src.line(depth, "for (i = 0; i < " + n + "; i += 1) {");
+            statements(random, src, depth + 1, true, count);
+            src.line(depth, "}");
+            break;
+        default:
+            // JSLint doesn't allow functions to be made in loops.
+            src.line(depth, "d.push(function (e) {");
+            src.line(depth + 1, "var f = e * " + n + ";");
+            statements(random, src, depth + 1, false, count);
+            src.line(depth + 1, "return f;");
+            src.line(depth, "});");
+            break;
+        }
+    }
+
+    /** A statement which JSLint doesn't mind. */
+    private void simple(Random random, Source src, int depth) {
+        int n = random.nextInt(1000);
+        switch (random.nextInt(5)) {
+        case 0:
+            src.line(depth, "c = c * " + n + " + d.length;");
+            break;
+        case 1:
+            src.line(depth, "d.push(c - " + n + ");");
+            break;
+        case 2:
+            src.line(depth, "c = d.length === " + n + " ? c : b;");
+            break;
+        case 3:
+            src.line(depth, "d.push({key: c, value: 'v" + n + "'});");
+            break;
+        default:
+            src.line(depth, "c = String(c).length + " + n + ";");
+            break;
+        }
+    }
+
+    /** A statement which JSLint complains about. */
+    private void issue(Random random, Source src, int depth) {
+        switch (random.nextInt(4)) {
+        case 0:
+            src.line(depth, "c = d.length == " + random.nextInt(1000) + " ? c : b;");
+            break;
+        case 1:
+            src.line(depth, "c++;");
+            break;
+        case 2:
+            src.line(depth, "c = c + " + random.nextInt(1000));
+            break;
+        default:
+            src.line(depth, "c = eval('c');");
+            break;
+        }
+    }
+
+    /** Write each file in the corpus to <i>dir</i>, which is created if need be. */
+    public void writeTo(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can't create " + dir);
+        }
+        for (LintSource source : generate()) {
+            Writer out = new OutputStreamWriter(new FileOutputStream(new File(dir,
+                    source.getName())), UTF8);
+            try {
+                out.write(source.read());
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /** Source code under construction, either formatted or minified. */
+    private static final class Source {
+        private final boolean minified;
+        private final StringBuilder sb = new StringBuilder();
+
+        Source(boolean minified) {
+            this.minified = minified;
+        }
+
+        private static boolean isIdentifierPart(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+        }
+
+        int length() {
+            return sb.length();
+        }
+
+        /**
+         * Add a line of formatted source, indented to <i>depth</i>. When minifying, only keep the
+         * spaces which separate two words. None of the strings we make contain a space.
+         */
+        void line(int depth, String text) {
+            if (!minified) {
+                for (int i = 0; i < depth; i++) {
+                    sb.append("    ");
+                }
+                sb.append(text).append('\n');
+                return;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                if (ch == ' ' && !(i > 0 && i + 1 < text.length()
+                        && isIdentifierPart(text.charAt(i - 1))
+                        && isIdentifierPart(text.charAt(i + 1)))) {
+                    continue;
+                }
+                sb.append(ch);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintSource;
+import com.googlecode.jslint4java.formatter.CheckstyleXmlFormatter;
+import com.googlecode.jslint4java.formatter.JSLintResultFormatter;
+import com.googlecode.jslint4java.formatter.JSLintXmlFormatter;
+import com.googlecode.jslint4java.formatter.JUnitXmlFormatter;
+import com.googlecode.jslint4java.formatter.PlainFormatter;
+import com.googlecode.jslint4java.formatter.ReportFormatter;
+
+/**
+ * How long does each {@link JSLintResultFormatter} take to format the results of a
+ * {@link Corpus}? The linting is done up front, so only the formatting is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+
+    @Param({ "checkstyle", "jslint", "junit", "plain", "report" })
+    public String formatterName;
+
+    @Param({ "MEDIUM", "LARGE" })
+    public Corpus corpus;
+
+    private JSLintResultFormatter formatter;
+
+    private final List<JSLintResult> results = new ArrayList<JSLintResult>();
+
+    private static JSLintResultFormatter formatter(String name) {
+        if (name.equals("checkstyle")) {
+            return new CheckstyleXmlFormatter();
+        } else if (name.equals("jslint")) {
+            return new JSLintXmlFormatter();
+        } else if (name.equals("junit")) {
+            return new JUnitXmlFormatter();
+        } else if (name.equals("plain")) {
+            return new PlainFormatter();
+        } else if (name.equals("report")) {
+            return new ReportFormatter();
+        }
+        throw new IllegalArgumentException("unknown formatter: " + name);
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        formatter = formatter(formatterName);
+        // The default result detail is the full report, which ReportFormatter needs.
+        JSLint lint = new JSLintBuilder().fromDefault();
+        for (LintSource source : corpus.load()) {
+            results.add(lint.lint(source.getName(), source.read()));
+        }
+    }
+
+    @Benchmark
+    public void format(Blackhole bh) {
+        bh.consume(formatter.header());
+        for (JSLintResult result : results) {
+            bh.consume(formatter.format(result));
+        }
+        bh.consume(formatter.footer());
+    }
+}
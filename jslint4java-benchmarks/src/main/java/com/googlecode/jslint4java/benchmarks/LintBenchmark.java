@@ -0,0 +1,63 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.LintSource;
+
+/**
+ * How long does {@link JSLint#lint(String, String)} take over a whole {@link Corpus}, including
+ * gathering the full result? This is the hot path for every front end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class LintBenchmark {
+
+    @Param({ "SMALL", "MEDIUM", "MINIFIED", "LARGE" })
+    public Corpus corpus;
+
+    private JSLint lint;
+
+    private String[] names;
+
+    private String[] sources;
+
+    @Setup
+    public void setUp() throws IOException {
+        lint = new JSLintBuilder().fromDefault();
+        List<LintSource> corpusSources = corpus.load();
+        names = new String[corpusSources.size()];
+        sources = new String[corpusSources.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = corpusSources.get(i).getName();
+            sources[i] = corpusSources.get(i).read();
+        }
+    }
+
+    @Benchmark
+    public void lint(Blackhole bh) {
+        for (int i = 0; i < names.length; i++) {
+            bh.consume(lint.lint(names[i], sources[i]));
+        }
+    }
+}
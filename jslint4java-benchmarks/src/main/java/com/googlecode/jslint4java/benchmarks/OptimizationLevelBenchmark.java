@@ -0,0 +1,73 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintResult;
+
+/**
+ * Steady state lint throughput at each Rhino optimization level. This is the other side of the
+ * trade off from {@link ColdStartBenchmark}: the interpreter starts fastest but lints slowest.
+ * The input is jslint.js itself, which is a decent sized, realistic file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class OptimizationLevelBenchmark {
+
+    private static final String JSLINT_JS = "com/googlecode/jslint4java/jslint.js";
+
+    @Param({ "-1", "0", "9" })
+    public int optimizationLevel;
+
+    private JSLint lint;
+
+    private String source;
+
+    @Setup
+    public void setUp() throws IOException {
+        lint = new JSLintBuilder().optimizationLevel(optimizationLevel).fromDefault();
+        source = readResource(JSLINT_JS);
+    }
+
+    static String readResource(String name) throws IOException {
+        Reader reader = new InputStreamReader(OptimizationLevelBenchmark.class.getClassLoader()
+                .getResourceAsStream(name), Charset.forName("UTF-8"));
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[8192];
+            int n;
+            while ((n = reader.read(buf)) != -1) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public JSLintResult lint() {
+        return lint.lint("jslint.js", source);
+    }
+}
@@ -0,0 +1,101 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintPool;
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintSource;
+
+/**
+ * How does {@link JSLintPool#lint(String, String)} throughput grow with the number of threads
+ * sharing a pool? The pool has an instance for every thread, so this measures contention in the
+ * pool and in Rhino, not waiting for an idle instance. Ideally, throughput grows in step with the
+ * thread count, up to the number of cores.
+ *
+ * <p>
+ * JMH fixes the thread count per method, so there's one method per count. {@code threadsMax} uses
+ * a thread per core.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PoolBenchmark {
+
+    /** Which source each thread lints next. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Param({ "MEDIUM", "LARGE" })
+    public Corpus corpus;
+
+    private JSLintPool pool;
+
+    private String[] names;
+
+    private String[] sources;
+
+    @Setup
+    public void setUp() throws IOException {
+        int size = Math.max(4, Runtime.getRuntime().availableProcessors());
+        pool = new JSLintBuilder().poolFromDefault(size);
+        List<LintSource> corpusSources = corpus.load();
+        names = new String[corpusSources.size()];
+        sources = new String[corpusSources.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = corpusSources.get(i).getName();
+            sources[i] = corpusSources.get(i).read();
+        }
+    }
+
+    /** Lint the cursor's next source. */
+    private JSLintResult lintNext(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 1) % names.length;
+        return pool.lint(names[i], sources[i]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JSLintResult threads1(Cursor cursor) {
+        return lintNext(cursor);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public JSLintResult threads2(Cursor cursor) {
+        return lintNext(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JSLintResult threads4(Cursor cursor) {
+        return lintNext(cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public JSLintResult threadsMax(Cursor cursor) {
+        return lintNext(cursor);
+    }
+}
@@ -0,0 +1,62 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.benchmarks.CorpusGenerator.Style;
+
+/**
+ * How does lint time grow with the size, nesting and messiness of a single file? Each
+ * combination of parameters is a {@link CorpusGenerator} setting, so a slow case found here can
+ * be written out and reproduced with the command line tool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+
+    @Param({ "1024", "16384", "262144" })
+    public int fileSize;
+
+    @Param({ "2", "8" })
+    public int maxDepth;
+
+    @Param({ "0.0", "0.05" })
+    public double issueDensity;
+
+    @Param({ "FORMATTED", "MINIFIED" })
+    public Style style;
+
+    private JSLint lint;
+
+    private String source;
+
+    @Setup
+    public void setUp() throws Exception {
+        lint = new JSLintBuilder().fromDefault();
+        source = new CorpusGenerator.Builder().files(1).meanFileSize(fileSize).maxDepth(maxDepth)
+                .issueDensity(issueDensity).style(style).build().generate().get(0).read();
+    }
+
+    @Benchmark
+    public JSLintResult lint() {
+        return lint.lint("gen0.js", source);
+    }
+}
@@ -0,0 +1,44 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+
+/**
+ * How long does {@link JSLintBuilder#fromDefault()} take once the JVM is warm? This is what a
+ * long running process (an IDE, a build daemon) pays for each new {@link JSLint}. Compare with
+ * {@link ColdStartBenchmark} for the first one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+public class WarmStartBenchmark {
+
+    private final JSLintBuilder builder = new JSLintBuilder();
+
+    /** A new builder each time, so jslint.js is loaded again (though its classes are not). */
+    @Benchmark
+    public JSLint newBuilder() {
+        return new JSLintBuilder().fromDefault();
+    }
+
+    /** The same builder each time, which only has to make a new scope. */
+    @Benchmark
+    public JSLint sameBuilder() {
+        return builder.fromDefault();
+    }
+}
@@ -0,0 +1,108 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintSource;
+import com.googlecode.jslint4java.benchmarks.CorpusGenerator.SizeDistribution;
+import com.googlecode.jslint4java.benchmarks.CorpusGenerator.Style;
+
+public class CorpusGeneratorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final JSLint lint = new JSLintBuilder().fromDefault();
+
+    private String text(List<LintSource> corpus) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (LintSource source : corpus) {
+            sb.append(source.getName()).append('\n').append(source.read());
+        }
+        return sb.toString();
+    }
+
+    private int issues(List<LintSource> corpus) throws IOException {
+        int issues = 0;
+        for (LintSource source : corpus) {
+            issues += lint.lint(source.getName(), source.read()).getIssues().size();
+        }
+        return issues;
+    }
+
+    @Test
+    public void sameSeedMakesTheSameCorpus() throws Exception {
+        CorpusGenerator.Builder b = new CorpusGenerator.Builder().files(5).issueDensity(0.1)
+                .sizeDistribution(SizeDistribution.LOG_NORMAL).seed(7);
+        assertThat(text(b.build().generate()), is(text(b.build().generate())));
+        assertThat(text(b.seed(8).build().generate()),
+                is(not(text(b.seed(7).build().generate()))));
+    }
+
+    @Test
+    public void makesAsManyFilesAsAskedFor() throws Exception {
+        assertThat(new CorpusGenerator.Builder().files(12).build().generate(), hasSize(12));
+    }
+
+    @Test
+    public void filesAreAboutTheMeanSize() throws Exception {
+        List<LintSource> corpus = new CorpusGenerator.Builder().files(50).meanFileSize(2000)
+                .sizeDistribution(SizeDistribution.UNIFORM).build().generate();
+        int total = text(corpus).length();
+        assertThat(total / corpus.size(), is(greaterThan(1500)));
+        assertThat(total / corpus.size(), is(lessThan(3000)));
+    }
+
+    @Test
+    public void formattedWithoutIssuesLintsClean() throws Exception {
+        List<LintSource> corpus = new CorpusGenerator.Builder().files(10).maxDepth(5).seed(3)
+                .build().generate();
+        for (LintSource source : corpus) {
+            JSLintResult result = lint.lint(source.getName(), source.read());
+            assertThat(source.getName(), result.getIssues(), empty());
+        }
+    }
+
+    @Test
+    public void issueDensityMakesIssues() throws Exception {
+        CorpusGenerator.Builder b = new CorpusGenerator.Builder().files(10).seed(3);
+        int some = issues(b.issueDensity(0.05).build().generate());
+        assertThat(some, is(greaterThan(0)));
+        assertThat(issues(b.issueDensity(0.3).build().generate()), is(greaterThan(some)));
+    }
+
+    @Test
+    public void minifiedHasNoOptionalWhitespace() throws Exception {
+        List<LintSource> corpus = new CorpusGenerator.Builder().files(1).style(Style.MINIFIED)
+                .build().generate();
+        String js = corpus.get(0).read();
+        assertThat(js, not(containsString("\n")));
+        assertThat(js, not(containsString(" = ")));
+        assertThat(js, containsString("var c=a+b,d=[],i=0;"));
+    }
+
+    @Test
+    public void writesFiles() throws Exception {
+        File dir = new File(tmp.getRoot(), "corpus");
+        new CorpusGenerator.Builder().files(3).build().writeTo(dir);
+        assertThat(dir.list().length, is(3));
+        assertThat(new File(dir, "gen0.js").length(), is(greaterThan(0L)));
+    }
+}
@@ -0,0 +1,42 @@
+package com.googlecode.jslint4java.benchmarks;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBuilder;
+
+/**
+ * Guards against lint cost growing faster than the source does. Costs are measured in Rhino
+ * instructions rather than time, so this gives the same answer on a busy build machine.
+ */
+public class ScalingTest {
+
+    private final JSLint lint = new JSLintBuilder().fromDefault();
+
+    private long cost(int size, int maxDepth) throws Exception {
+        String js = new CorpusGenerator.Builder().files(1).meanFileSize(size).maxDepth(maxDepth)
+                .seed(11).build().generate().get(0).read();
+        return lint.lint("gen0.js", js).getInstructionCount();
+    }
+
+    private void assertScalesLinearly(int maxDepth) throws Exception {
+        long small = cost(8 * 1024, maxDepth);
+        long large = cost(64 * 1024, maxDepth);
+        // Eight times the source should cost about eight times as much. Allow for plenty of
+        // noise, but not for quadratic growth.
+        assertThat(large, lessThan(small * 8 * 2));
+    }
+
+    @Test
+    public void costGrowsLinearlyWithFileSize() throws Exception {
+        assertScalesLinearly(3);
+    }
+
+    @Test
+    public void costGrowsLinearlyWithDeeplyNestedCode() throws Exception {
+        assertScalesLinearly(10);
+    }
+}
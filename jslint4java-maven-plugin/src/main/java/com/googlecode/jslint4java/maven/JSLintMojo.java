@@ -1,17 +1,15 @@
 package com.googlecode.jslint4java.maven;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -21,14 +19,25 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.io.Closeables;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.googlecode.jslint4java.Issue;
 import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBatch;
 import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintPool;
 import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintLimits;
+import com.googlecode.jslint4java.LintSource;
+import com.googlecode.jslint4java.LintSummary;
 import com.googlecode.jslint4java.Option;
-import com.googlecode.jslint4java.UnicodeBomInputStream;
+import com.googlecode.jslint4java.ResultCache;
+import com.googlecode.jslint4java.SourceLoader;
 import com.googlecode.jslint4java.formatter.CheckstyleXmlFormatter;
 import com.googlecode.jslint4java.formatter.JSLintResultFormatter;
 import com.googlecode.jslint4java.formatter.JSLintXmlFormatter;
@@ -62,6 +71,12 @@ public class JSLintMojo extends AbstractMojo {
     /** Where to write the junit report. */
     private static final String JUNIT_XML = "junit.xml";
 
+    /** Where to remember what we linted, for incremental builds. */
+    private static final String MANIFEST = "manifest.bin";
+
+    /** Where to write the timing summary. */
+    private static final String SUMMARY_XML = "summary.xml";
+
     /**
      * Specifies the the source files to be excluded for JSLint (relative to
      * {@link #defaultSourceFolder}). Maven applies its own defaults.
@@ -109,6 +124,14 @@ public class JSLintMojo extends AbstractMojo {
     @Parameter(property = "jslint.outputFolder", defaultValue = "${project.build.directory}/jslint4java")
     private File outputFolder = new File("target");
 
+    /**
+     * How many characters of the offending line to keep with each problem. Lines of minified
+     * JavaScript can be enormous, so setting this (e.g. to 200) saves a lot of memory, and report
+     * space. The default, -1, keeps the whole line.
+     */
+    @Parameter(property = "jslint.evidenceWidth", defaultValue = "-1")
+    private int evidenceWidth = Issue.WHOLE_LINE;
+
     /**
      * Fail the build if JSLint detects any problems.
      */
@@ -127,6 +150,49 @@ public class JSLintMojo extends AbstractMojo {
     @Parameter(property = "jslint.timeout")
     private long timeout;
 
+    /**
+     * A directory in which to keep results between builds, so that files which haven't changed
+     * aren't linted again. For example, <code>${project.build.directory}/jslint4java/cache</code>.
+     * If not set, nothing is cached.
+     */
+    @Parameter(property = "jslint.cacheDirectory")
+    private File cacheDirectory;
+
+    /**
+     * Only lint files which have changed since the last build. The results for each file are
+     * kept in <code>manifest.bin</code> in the output folder, and the reports are written from
+     * a mixture of those and fresh results. Changing the options, the encoding, JSLint or the
+     * plugin version means linting everything again.
+     */
+    @Parameter(property = "jslint.incremental", defaultValue = "false")
+    private boolean incremental = false;
+
+    /** Our own version, so that a new plugin doesn't reuse an old manifest. */
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    /**
+     * How many files to lint at once. Either a number of threads, or a number followed by "C",
+     * meaning that many threads per CPU core (e.g. "1C" or "1.5C"). Reports are the same
+     * whatever this is set to.
+     */
+    @Parameter(property = "jslint.threads", defaultValue = "1")
+    private String threads = "1";
+
+    /**
+     * Log where the time went once linting has finished: the total time, how much of it was
+     * spent starting JSLint and linting, and the slowest files. The same is written to
+     * <code>summary.xml</code> in the output folder.
+     */
+    @Parameter(property = "jslint.summary", defaultValue = "false")
+    private boolean summary = false;
+
+    /**
+     * How many of the slowest files to list in the summary.
+     */
+    @Parameter(property = "jslint.summarySlowest", defaultValue = "10")
+    private int summarySlowest = LintSummary.DEFAULT_SLOWEST;
+
     /**
      * Skip linting files if true.
      */
@@ -150,7 +216,7 @@ public class JSLintMojo extends AbstractMojo {
         }
     }
 
-    private void applyOptions(JSLint jsLint) throws MojoExecutionException {
+    private void applyOptions(JSLintPool pool) throws MojoExecutionException {
         for (Entry<String, String> entry : options.entrySet()) {
             if (entry.getValue() == null || entry.getValue().equals("")) {
                 continue;
@@ -161,7 +227,7 @@ public class JSLintMojo extends AbstractMojo {
             } catch (IllegalArgumentException e) {
                 throw new MojoExecutionException("unknown option: " + entry.getKey());
             }
-            jsLint.addOption(option, entry.getValue());
+            pool.addOption(option, entry.getValue());
         }
     }
 
@@ -170,22 +236,72 @@ public class JSLintMojo extends AbstractMojo {
             getLog().info("skipping JSLint");
             return;
         }
-        JSLint jsLint = applyJSlintSource();
+        int threadCount = parseThreads(threads, Runtime.getRuntime().availableProcessors());
+        LintSummary timings = summary ? makeSummary() : null;
+        JSLintPool pool = applyJSlintSource(threadCount);
         applyDefaults();
-        applyOptions(jsLint);
+        applyOptions(pool);
+        try {
+            pool.setEvidenceWidth(evidenceWidth);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage());
+        }
+        if (timings != null) {
+            timings.startupCompleted();
+            pool.setMetrics(timings);
+        }
         List<File> files = getFilesToProcess();
+        SourceLoader loader = makeSourceLoader();
+        ResultCache cache = cacheDirectory == null ? null : new ResultCache(cacheDirectory);
+        Manifest previous = null;
+        Manifest next = null;
+        if (incremental) {
+            String fingerprint = fingerprint(pool);
+            previous = Manifest.read(new File(outputFolder, MANIFEST), fingerprint);
+            next = new Manifest(fingerprint);
+        }
+        List<LintSource> sources = Lists.newArrayListWithCapacity(files.size());
+        for (File file : files) {
+            sources.add(LintSource.fromFile(file, loader));
+        }
+        if (threadCount > 1) {
+            getLog().debug("linting with " + threadCount + " threads");
+        }
+        // Reports come out in the same order as the files were found, whatever order they
+        // finish in.
+        JSLintBatch batch = new JSLintBatch(pool);
+        batch.setLinter(linter(cache, previous, next));
         int failures = 0;
         ReportWriter reporter = makeReportWriter();
         try {
+            Iterator<JSLintResult> results = batch.lint(sources);
             reporter.open();
-            for (File file : files) {
-                JSLintResult result = lintFile(jsLint, file);
+            while (results.hasNext()) {
+                JSLintResult result = results.next();
                 failures += result.getIssues().size();
                 logIssues(result, reporter);
             }
+        } catch (JSLintBatch.SourceException e) {
+            String file = e.getSource().getName();
+            if (e.getCause() instanceof FileNotFoundException) {
+                throw new MojoExecutionException("file not found: " + file, e.getCause());
+            }
+            throw new MojoExecutionException("problem whilst linting " + file, e.getCause());
+        } catch (CancellationException e) {
+            throw new MojoExecutionException("interrupted", e);
         } finally {
             reporter.close();
         }
+        if (incremental) {
+            writeManifest(next);
+        }
+        if (timings != null) {
+            writeSummary(timings);
+        }
+        if (cache != null) {
+            getLog().debug("reused " + cache.getHitCount() + " of " + files.size()
+                    + " results from " + cacheDirectory);
+        }
         if (failures > 0) {
             String message = "JSLint found " + failures + " problems in " + files.size() + " files";
             if (failOnError) {
@@ -196,20 +312,62 @@ public class JSLintMojo extends AbstractMojo {
         }
     }
 
-    private JSLint applyJSlintSource() throws MojoExecutionException {
+    private JSLintPool applyJSlintSource(int size) throws MojoExecutionException {
         JSLintBuilder builder = new JSLintBuilder();
         if (timeout > 0) {
             builder.timeout(timeout);
         }
         if (jslintSource != null) {
             try {
-                return builder.fromFile(jslintSource, Charset.forName(encoding));
+                return builder.poolFromFile(jslintSource, Charset.forName(encoding), size);
             } catch (IOException e) {
                 throw new MojoExecutionException("Cant' load jslint.js", e);
             }
         } else {
-            return builder.fromDefault();
+            return builder.poolFromDefault(size);
+        }
+    }
+
+    /**
+     * A checksum of everything that affects the results, other than the files themselves: the
+     * plugin version, JSLint itself, its options and the encoding the files are read in.
+     */
+    private String fingerprint(JSLintPool pool) {
+        Hasher hasher = Hashing.sha1().newHasher();
+        hasher.putString(Strings.nullToEmpty(pluginVersion)).putByte((byte) 0);
+        hasher.putString(pool.getScriptDigest()).putByte((byte) 0);
+        hasher.putString(pool.getResultDetail().name()).putByte((byte) 0);
+        hasher.putInt(pool.getEvidenceWidth());
+        hasher.putString(pool.getOptions().toString()).putByte((byte) 0);
+        hasher.putString(encoding).putByte((byte) 0);
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Turn a {@link #threads} specification into a number of threads.
+     *
+     * @param processors
+     *            how many processors are available, for "C" specifications.
+     */
+    @VisibleForTesting
+    static int parseThreads(String spec, int processors) throws MojoExecutionException {
+        String s = spec.trim();
+        try {
+            if (s.endsWith("C") || s.endsWith("c")) {
+                double perCore = Double.parseDouble(s.substring(0, s.length() - 1));
+                if (perCore > 0) {
+                    return Math.max(1, (int) (perCore * processors));
+                }
+            } else {
+                int n = Integer.parseInt(s);
+                if (n > 0) {
+                    return n;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Fall through.
         }
+        throw new MojoExecutionException("invalid threads: " + spec);
     }
 
     @VisibleForTesting
@@ -247,24 +405,69 @@ public class JSLintMojo extends AbstractMojo {
         return options;
     }
 
-    private JSLintResult lintFile(JSLint jsLint, File file) throws MojoExecutionException {
-        getLog().debug("lint " + file);
-        BufferedReader reader = null;
-        try {
-            UnicodeBomInputStream stream = new UnicodeBomInputStream(new FileInputStream(file));
-            stream.skipBOM();
-            reader = new BufferedReader(new InputStreamReader(stream, getEncoding()));
-            return jsLint.lint(file.toString(), reader);
-        } catch (FileNotFoundException e) {
-            throw new MojoExecutionException("file not found: " + file, e);
-        } catch (UnsupportedEncodingException e) {
-            // Can never happen.
-            throw new MojoExecutionException("unsupported character encoding UTF-8", e);
-        } catch (IOException e) {
-            throw new MojoExecutionException("problem whilst linting " + file, e);
-        } finally {
-            Closeables.closeQuietly(reader);
+    private JSLintResult lintFile(JSLint jsLint, ResultCache cache, LintSource source)
+            throws IOException {
+        getLog().debug("lint " + source);
+        String javaScript = source.read();
+        if (cache != null) {
+            return cache.lint(jsLint, source.getName(), javaScript);
         }
+        return jsLint.lint(source.getName(), javaScript);
+    }
+
+    /**
+     * Lint <i>file</i>, unless <i>previous</i> says that it hasn't changed since last time. Either
+     * way, record its result in <i>next</i>.
+     */
+    private JSLintResult lintChangedFile(JSLint jsLint, ResultCache cache, LintSource source,
+            Manifest previous, Manifest next, File file) throws IOException {
+        String name = source.getName();
+        Manifest.Entry entry = previous.get(file);
+        if (entry != null && entry.isUnchanged(file)) {
+            JSLintResult result = entry.getResult(name);
+            if (result != null) {
+                getLog().debug("unchanged " + file);
+                next.put(file, entry);
+                return result;
+            }
+        }
+        long size = file.length();
+        long lastModified = file.lastModified();
+        String javaScript = source.read();
+        String hash = Manifest.hash(javaScript);
+        if (entry != null && entry.getHash().equals(hash)) {
+            // Touched, but not changed.
+            JSLintResult result = entry.getResult(name);
+            if (result != null) {
+                getLog().debug("unchanged " + file);
+                next.put(file, entry.touch(size, lastModified));
+                return result;
+            }
+        }
+        getLog().debug("lint " + file);
+        JSLintResult result = cache == null ? jsLint.lint(name, javaScript) : cache.lint(jsLint,
+                name, javaScript);
+        next.put(file, new Manifest.Entry(size, lastModified, hash, ResultCache.encode(result)));
+        return result;
+    }
+
+    /**
+     * Lint each file with the cache and manifest, if they're in use.
+     */
+    private JSLintBatch.Linter linter(final ResultCache cache, final Manifest previous,
+            final Manifest next) {
+        return new JSLintBatch.Linter() {
+            public JSLintResult lint(JSLint jsLint, LintSource source, LintLimits limits)
+                    throws IOException {
+                // LintSource.fromFile() names each source after its file.
+                File file = new File(source.getName());
+                if (incremental) {
+                    return lintChangedFile(jsLint, cache, source, previous, next, file);
+                } else {
+                    return lintFile(jsLint, cache, source);
+                }
+            }
+        };
     }
 
     private void logIssues(JSLintResult result, ReportWriter reporter) {
@@ -283,6 +486,21 @@ public class JSLintMojo extends AbstractMojo {
         }
     }
 
+    private LintSummary makeSummary() throws MojoExecutionException {
+        if (summarySlowest < 0) {
+            throw new MojoExecutionException("invalid summarySlowest: " + summarySlowest);
+        }
+        return new LintSummary(summarySlowest);
+    }
+
+    private SourceLoader makeSourceLoader() throws MojoExecutionException {
+        try {
+            return new SourceLoader(Charset.forName(getEncoding()));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("unsupported character encoding " + getEncoding(), e);
+        }
+    }
+
     private ReportWriter makeReportWriter() {
         ReportWriterImpl f1 = new ReportWriterImpl(new File(outputFolder, JSLINT_XML),
                 new JSLintXmlFormatter());
@@ -297,6 +515,14 @@ public class JSLintMojo extends AbstractMojo {
         return new MultiReportWriter(f1, f2, f3, f4, f5);
     }
 
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
     public void setDefaultSourceFolder(File defaultSourceFolder) {
         this.defaultSourceFolder = defaultSourceFolder;
     }
@@ -305,6 +531,10 @@ public class JSLintMojo extends AbstractMojo {
         this.encoding = encoding;
     }
 
+    public void setEvidenceWidth(int evidenceWidth) {
+        this.evidenceWidth = evidenceWidth;
+    }
+
     public void setExcludes(List<String> excludes) {
         this.excludes.clear();
         this.excludes.addAll(excludes);
@@ -341,4 +571,44 @@ public class JSLintMojo extends AbstractMojo {
         this.sourceFolders = sourceFolders.toArray(new File[sourceFolders.size()]);
     }
 
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
+    public void setSummarySlowest(int summarySlowest) {
+        this.summarySlowest = summarySlowest;
+    }
+
+    public void setThreads(String threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Save <i>manifest</i> for the next build. Failing to do so isn't fatal: we'll just have to
+     * lint everything next time.
+     */
+    private void writeManifest(Manifest manifest) {
+        File file = new File(outputFolder, MANIFEST);
+        try {
+            manifest.write(file);
+        } catch (IOException e) {
+            getLog().warn("can't write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Log <i>timings</i>, and save them next to the reports. Failing to save them isn't fatal.
+     */
+    private void writeSummary(LintSummary timings) {
+        timings.finish();
+        for (String line : timings.format().split("\\r?\\n")) {
+            getLog().info(line);
+        }
+        File file = new File(outputFolder, SUMMARY_XML);
+        try {
+            Files.write(timings.toXml(), file, Charsets.UTF_8);
+        } catch (IOException e) {
+            getLog().warn("can't write " + file + ": " + e.getMessage());
+        }
+    }
 }
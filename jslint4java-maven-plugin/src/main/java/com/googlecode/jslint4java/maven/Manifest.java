@@ -0,0 +1,175 @@
+package com.googlecode.jslint4java.maven;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.ResultCache;
+
+/**
+ * What we found last time we linted each file, so that an incremental build only has to lint
+ * the files which have changed. For each file, we remember its size, modification time, a
+ * checksum of its contents and the result of linting it.
+ *
+ * <p>
+ * The whole manifest is tied to a fingerprint of the settings used to lint. A manifest with a
+ * different fingerprint (or one that can't be read) is treated as empty.
+ *
+ * <p>
+ * A manifest may be used from several threads at once.
+ */
+class Manifest {
+
+    /** What we know about one file. */
+    static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+        private final byte[] result;
+
+        /**
+         * @param size
+         *            the size of the file, before it was read.
+         * @param lastModified
+         *            the modification time of the file, before it was read. Taking these before
+         *            reading means a change made while we lint will be noticed next time.
+         */
+        Entry(long size, long lastModified, String hash, byte[] result) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.result = result;
+        }
+
+        String getHash() {
+            return hash;
+        }
+
+        /**
+         * The result of linting the file, renamed to <i>name</i>, or null if it can't be read.
+         */
+        JSLintResult getResult(String name) {
+            try {
+                return ResultCache.decode(name, result);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /** Does <i>file</i> look the same as it did? */
+        boolean isUnchanged(File file) {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+
+        /** The same result, for a file which has been touched, but whose contents are the same. */
+        Entry touch(long newSize, long newLastModified) {
+            return new Entry(newSize, newLastModified, hash, result);
+        }
+    }
+
+    /** Marks the start of a manifest, and its format. Bump this if the format changes. */
+    private static final int MAGIC = 0x4a4c4d01;
+
+    /** The checksum of some JavaScript source. */
+    static String hash(String javaScript) {
+        return Hashing.sha1().hashBytes(javaScript.getBytes(Charsets.UTF_8)).toString();
+    }
+
+    /**
+     * Read the manifest in <i>file</i>. If it doesn't exist, can't be read, or was written with
+     * different settings, return an empty manifest.
+     */
+    static Manifest read(File file, String fingerprint) {
+        Manifest manifest = new Manifest(fingerprint);
+        if (!file.isFile()) {
+            return manifest;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || !in.readUTF().equals(fingerprint)) {
+                    return manifest;
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    String path = in.readUTF();
+                    long size = in.readLong();
+                    long lastModified = in.readLong();
+                    String hash = in.readUTF();
+                    byte[] result = new byte[in.readInt()];
+                    in.readFully(result);
+                    manifest.entries.put(path, new Entry(size, lastModified, hash, result));
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return new Manifest(fingerprint);
+        } catch (RuntimeException e) {
+            // e.g. a damaged length.
+            return new Manifest(fingerprint);
+        }
+        return manifest;
+    }
+
+    private final String fingerprint;
+
+    private final Map<String, Entry> entries = Maps.newLinkedHashMap();
+
+    Manifest(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /** What we know about <i>file</i>, or null if nothing. */
+    synchronized Entry get(File file) {
+        return entries.get(file.getPath());
+    }
+
+    synchronized void put(File file, Entry entry) {
+        entries.put(file.getPath(), entry);
+    }
+
+    /**
+     * Write this manifest to <i>file</i>. We write to a temporary file first, so that an
+     * interrupted build can't leave half a manifest behind.
+     */
+    synchronized void write(File file) throws IOException {
+        Files.createParentDirs(file);
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeUTF(fingerprint);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.writeUTF(entry.hash);
+                out.writeInt(entry.result.length);
+                out.write(entry.result);
+            }
+        } finally {
+            out.close();
+        }
+        // On some platforms, you can't rename over an existing file.
+        file.delete();
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("can't rename " + tmp + " to " + file);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.googlecode.jslint4java.maven;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -66,6 +67,14 @@ public class JSLintMojoTest extends AbstractMojoTestCase {
         fail(sb.toString());
     }
 
+    private void assertLogDoesNotContain(String unexpected) {
+        for (FakeLog.LogItem item : logger.loggedItems) {
+            if (item.msg != null && item.msg.toString().contains(unexpected)) {
+                fail("Found \"" + unexpected + "\" in log: " + item);
+            }
+        }
+    }
+
     /**
      * Check the file exists and is not empty.
      *
@@ -137,11 +146,37 @@ public class JSLintMojoTest extends AbstractMojoTestCase {
         mojo.execute();
     }
 
+    @Test
+    public void testCacheDirectory() throws Exception {
+        File cacheDir = new File(temp.getRoot(), "cache");
+        useBadSource();
+        mojo.setCacheDirectory(cacheDir);
+        mojo.setFailOnError(false);
+        mojo.execute();
+        assertLogContains("reused 0 of 1 results");
+        mojo.execute();
+        assertLogContains("reused 1 of 1 results");
+        // Cached results are still reported.
+        assertLogContains("bad.js:1:26: Expected ';' and instead saw '(end)'.");
+        assertThat(cacheDir.list().length, is(1));
+    }
+
     @Test
     public void testDefaultEncoding() {
         assertEquals("UTF-8", mojo.getEncoding());
     }
 
+    @Test
+    public void testEvidenceWidth() throws Exception {
+        useBadSource();
+        mojo.setFailOnError(false);
+        mojo.setEvidenceWidth(6);
+        mojo.execute();
+        assertLogContains("bad.js:1:26: Expected ';' and instead saw '(end)'.");
+        assertLogContains("'a+b')");
+        assertLogDoesNotContain("encodeURIComponent");
+    }
+
     @Test
     public void testFailOnError() throws Exception {
         useBadSource();
@@ -157,6 +192,84 @@ public class JSLintMojoTest extends AbstractMojoTestCase {
         assertEquals("JSLint found 1 problems in 1 files", e.getMessage());
     }
 
+    @Test
+    public void testIncremental() throws Exception {
+        useBadSource();
+        mojo.setIncremental(true);
+        mojo.setFailOnError(false);
+        mojo.execute();
+        assertLogContains("lint ");
+        assertFileExists("manifest.bin");
+        logger.loggedItems.clear();
+        new File(temp.getRoot(), "report.txt").delete();
+
+        mojo.execute();
+        assertLogContains("unchanged ");
+        assertLogDoesNotContain("lint ");
+        // The reports come from the manifest.
+        assertLogContains("JSLint found 1 problems in 1 files");
+        assertTrue(readFile(assertFileExists("report.txt")).contains("Expected ';'"));
+    }
+
+    @Test
+    public void testIncrementalLintsAgainWhenEncodingChanges() throws Exception {
+        useBadSource();
+        mojo.setIncremental(true);
+        mojo.setFailOnError(false);
+        mojo.execute();
+        logger.loggedItems.clear();
+        mojo.setEncoding("ISO-8859-1");
+        mojo.execute();
+        assertLogContains("lint ");
+        assertLogDoesNotContain("unchanged ");
+    }
+
+    @Test
+    public void testIncrementalLintsAgainWhenOptionsChange() throws Exception {
+        useBadSource();
+        mojo.setIncremental(true);
+        mojo.setFailOnError(false);
+        mojo.execute();
+        logger.loggedItems.clear();
+        mojo.addOption(Option.WHITE, "true");
+        mojo.execute();
+        assertLogContains("lint ");
+        assertLogDoesNotContain("unchanged ");
+    }
+
+    @Test
+    public void testParseThreads() throws Exception {
+        assertThat(JSLintMojo.parseThreads("3", 8), is(3));
+        assertThat(JSLintMojo.parseThreads("1C", 8), is(8));
+        assertThat(JSLintMojo.parseThreads("0.5C", 8), is(4));
+        assertThat(JSLintMojo.parseThreads("0.1C", 2), is(1));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testParseThreadsRejectsZero() throws Exception {
+        JSLintMojo.parseThreads("0", 8);
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testParseThreadsRejectsJunk() throws Exception {
+        JSLintMojo.parseThreads("lots", 8);
+    }
+
+    @Test
+    public void testThreadsGiveTheSameReports() throws Exception {
+        mojo.setSourceFolders(Arrays.asList(baseRelative(GOOD_JS), baseRelative(BAD_JS)));
+        mojo.setFailOnError(false);
+        mojo.execute();
+        String jslintXml = readFile(assertFileExists("jslint.xml"));
+        String checkstyleXml = readFile(assertFileExists("checkstyle.xml"));
+        mojo.setThreads("3");
+        mojo.execute();
+        assertThat(readFile(assertFileExists("jslint.xml")), is(jslintXml));
+        assertThat(readFile(assertFileExists("checkstyle.xml")), is(checkstyleXml));
+        assertLogContains("linting with 3 threads");
+        assertLogContains("JSLint found 1 problems in 3 files");
+    }
+
     @Test
     public void testLogToConsole() throws Exception {
         useBadSource();
@@ -226,6 +339,27 @@ public class JSLintMojoTest extends AbstractMojoTestCase {
         assertLogContains("skipping");
     }
 
+    @Test
+    public void testSummary() throws Exception {
+        useBadSource();
+        mojo.setFailOnError(false);
+        mojo.setSummary(true);
+        mojo.execute();
+        assertLogContains("Linted 1 files");
+        assertLogContains("Slowest files:");
+        String xml = readFile(assertFileExists("summary.xml"));
+        assertThat(xml, containsString("<summary files='1'"));
+        assertThat(xml, containsString("bad.js"));
+    }
+
+    @Test
+    public void testNoSummaryByDefault() throws Exception {
+        useGoodSource();
+        mojo.execute();
+        assertLogDoesNotContain("Linted ");
+        assertFalse(new File(temp.getRoot(), "summary.xml").exists());
+    }
+
     private void useBadSource() {
         mojo.setSourceFolders(Arrays.asList(baseRelative(BAD_JS)));
     }
@@ -0,0 +1,19 @@
+package com.googlecode.jslint4java;
+
+/**
+ * Why a lint was abandoned before it finished.
+ *
+ * @see JSLintResult#getAbortReason()
+ * @see LintLimits
+ */
+public enum AbortReason {
+
+    /** The {@link CancellationToken} was cancelled. */
+    CANCELLED,
+
+    /** The deadline or timeout in the {@link LintLimits} passed. */
+    DEADLINE,
+
+    /** JSLint ran more instructions than the {@link LintLimits} allow. */
+    INSTRUCTION_BUDGET;
+}
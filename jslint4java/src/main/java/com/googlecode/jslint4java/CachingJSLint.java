@@ -0,0 +1,228 @@
+package com.googlecode.jslint4java;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Lint using a {@link JSLintPool}, but remember results, so that linting the same source again is
+ * free. This suits editors and build servers, which tend to see the same files over and over.
+ *
+ * <p>
+ * Results are keyed on a checksum of the source text, the options, the result detail and
+ * jslint.js itself. So a source which is copied to another name still hits the cache (and the
+ * result is renamed to match). The least recently used results are discarded once there are more
+ * than a given number.
+ *
+ * <p>
+ * If several threads ask for the same result at once, only one of them runs jslint; the others
+ * wait and share its result.
+ */
+public class CachingJSLint {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final JSLintPool pool;
+
+    private final String scriptDigest;
+
+    private final int maxEntries;
+
+    /** Guarded by this. */
+    @SuppressWarnings("serial")
+    private final Map<String, JSLintResult> cache = new LinkedHashMap<String, JSLintResult>(16,
+            0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JSLintResult> eldest) {
+            if (size() > maxEntries) {
+                evictionCount++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /** Lints that are running right now, by key. Guarded by this. */
+    private final Map<String, FutureTask<JSLintResult>> inFlight =
+            new HashMap<String, FutureTask<JSLintResult>>();
+
+    private long hitCount = 0;
+
+    private long missCount = 0;
+
+    private long evictionCount = 0;
+
+    /**
+     * @param pool
+     *            where to lint sources that aren't in the cache.
+     * @param maxEntries
+     *            the most results to keep.
+     */
+    public CachingJSLint(JSLintPool pool, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+        }
+        this.pool = pool;
+        this.maxEntries = maxEntries;
+        scriptDigest = pool.getScriptDigest();
+    }
+
+    /**
+     * Compute the cache key for linting <i>javaScript</i> with the given settings: a hex encoded
+     * SHA-1 checksum.
+     */
+    static String key(String scriptDigest, ResultDetail detail, int evidenceWidth,
+            LintOptions options, String javaScript) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(scriptDigest.getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(detail.name().getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(evidenceWidth).getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(options.toString().getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(javaScript.getBytes(UTF8));
+            return ClassCache.hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has to provide SHA-1.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Throw away all results. The counters are left alone. */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /** How many results have been discarded to make room for others. */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * How many lints were answered without running jslint, including those that waited for
+     * another thread to lint the same source.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** How many lints had to run jslint. */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Check for problems in JavaScript source, using the options set on the pool.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, String javaScript) {
+        return lint(systemId, javaScript, pool.getOptions());
+    }
+
+    /**
+     * Check for problems in JavaScript source, using <i>options</i>.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     *
+     * @return a {@link JSLintResult}. This is never shared with other callers.
+     * @throws CancellationException
+     *             if interrupted while waiting for another thread to lint the same source.
+     */
+    public JSLintResult lint(final String systemId, final String javaScript,
+            final LintOptions options) {
+        String source = javaScript == null ? "" : javaScript;
+        String key = key(scriptDigest, pool.getResultDetail(), pool.getEvidenceWidth(), options,
+                source);
+        FutureTask<JSLintResult> task;
+        boolean mine = false;
+        synchronized (this) {
+            JSLintResult cached = cache.get(key);
+            if (cached != null) {
+                hitCount++;
+                return cached.copyAs(systemId);
+            }
+            task = inFlight.get(key);
+            if (task == null) {
+                missCount++;
+                task = new FutureTask<JSLintResult>(new Callable<JSLintResult>() {
+                    public JSLintResult call() {
+                        return pool.lint(systemId, javaScript, options);
+                    }
+                });
+                inFlight.put(key, task);
+                mine = true;
+            } else {
+                hitCount++;
+            }
+        }
+        if (mine) {
+            task.run();
+            synchronized (this) {
+                inFlight.remove(key);
+                JSLintResult result = resultOf(task);
+                // Failures (e.g. timeouts) and abandoned lints aren't remembered.
+                if (result != null && !result.isAborted()) {
+                    cache.put(key, result);
+                }
+            }
+        }
+        return await(task).copyAs(systemId);
+    }
+
+    /** The result of a finished task, or null if it failed. */
+    private JSLintResult resultOf(FutureTask<JSLintResult> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            // Can't happen: the task is done.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Wait for <i>task</i>, rethrowing any failure. */
+    private JSLintResult await(FutureTask<JSLintResult> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    /** How many results are cached right now. */
+    public synchronized int size() {
+        return cache.size();
+    }
+}
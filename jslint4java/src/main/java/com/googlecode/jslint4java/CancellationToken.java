@@ -0,0 +1,26 @@
+package com.googlecode.jslint4java;
+
+/**
+ * A way to abandon lints from another thread. Pass the same token (via {@link LintLimits}) to as
+ * many lints as you like; once it's cancelled, those that are running stop shortly afterwards,
+ * and those that haven't started yet don't. Either way, they return a result which
+ * {@link JSLintResult#isAborted() is aborted}.
+ *
+ * <p>
+ * Unlike interrupting a thread, this doesn't disturb anything else the thread might be doing. A
+ * token can't be reset: make a new one instead.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled = false;
+
+    /** Abandon all lints using this token. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Has {@link #cancel()} been called? */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,180 @@
+package com.googlecode.jslint4java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.GeneratedClassLoader;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+
+/**
+ * A directory of jslint.js scripts that have been compiled to JVM classes. Compiling jslint.js is
+ * a large part of startup time, so doing it once and keeping the result between runs speeds up
+ * short lived processes considerably.
+ *
+ * <p>
+ * Each class is stored in a file named after a checksum of the script source, the Rhino version
+ * and the compiler settings. So a change to any of them results in a fresh compile. A damaged or
+ * unreadable file is treated the same as a missing one.
+ */
+final class ClassCache {
+
+    /** By default, compile with all of Rhino's optimizations enabled. */
+    static final int OPTIMIZATION_LEVEL = 9;
+
+    private static final String CLASS_PREFIX = "com.googlecode.jslint4java.compiled.JSLint_";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File directory;
+
+    ClassCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Compile <i>source</i> to the bytes of a class called <i>className</i>, which implements
+     * {@link Script}.
+     */
+    static byte[] compileToClass(CompilerEnvirons env, String source, String name,
+            String className) {
+        Object[] classes = new ClassCompiler(env).compileToClassFiles(source, name, 1, className);
+        // We don't ask for a superclass or interfaces, so there's only ever one class.
+        return (byte[]) classes[1];
+    }
+
+    /** Turn <i>bytes</i> into a lowercase hexadecimal string. */
+    static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Return a {@link Script} for <i>source</i>, loading it from the cache if possible, or
+     * compiling it (and storing the result) if not.
+     *
+     * @param cx
+     *            the current context. It decides whether the compiled code supports instruction
+     *            observers (which timeouts need).
+     * @param source
+     *            the text of jslint.js.
+     * @param name
+     *            where <i>source</i> came from, for error messages.
+     * @param optimizationLevel
+     *            the Rhino optimization level to compile at, from 0 to 9.
+     */
+    Script compile(Context cx, String source, String name, int optimizationLevel) {
+        CompilerEnvirons env = new CompilerEnvirons();
+        env.initFromContext(cx);
+        env.setOptimizationLevel(optimizationLevel);
+        String key = key(cx, env, source);
+        String className = CLASS_PREFIX + key;
+        File file = new File(directory, key + ".class");
+
+        if (file.isFile()) {
+            try {
+                return define(cx, className, readFully(file));
+            } catch (IOException e) {
+                // Fall through to recompile.
+            } catch (LinkageError e) {
+                // Fall through to recompile.
+            } catch (RuntimeException e) {
+                // Fall through to recompile.
+            }
+        }
+
+        byte[] bytes = compileToClass(env, source, name, className);
+        store(file, bytes);
+        return define(cx, className, bytes);
+    }
+
+    /** Load <i>bytes</i> as a class and return a new instance of it. */
+    private Script define(Context cx, String className, byte[] bytes) {
+        GeneratedClassLoader loader = cx.createClassLoader(ClassCache.class.getClassLoader());
+        Class<?> cls = loader.defineClass(className, bytes);
+        loader.linkClass(cls);
+        try {
+            return (Script) cls.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The checksum identifying a compiled class. */
+    private String key(Context cx, CompilerEnvirons env, String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(cx.getImplementationVersion().getBytes(UTF8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(env.getOptimizationLevel()).getBytes(UTF8));
+            digest.update((byte) (env.isGenerateObserverCount() ? 1 : 0));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(UTF8));
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has to provide SHA-1.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write <i>bytes</i> to <i>file</i>. We write to a temporary file first, so that a concurrent
+     * reader never sees half a class. Failing to write is not an error: we just compile again next
+     * time.
+     */
+    private void store(File file, byte[] bytes) {
+        File tmp = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+            tmp = File.createTempFile(file.getName(), ".tmp", directory);
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            if (tmp.renameTo(file)) {
+                tmp = null;
+            }
+        } catch (IOException e) {
+            // Ignore; see above.
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.googlecode.jslint4java;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes daemon threads, so that threads we start for linting can never keep the JVM alive.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final String prefix;
+
+    /**
+     * @param prefix
+     *            the start of each thread's name. A number is added to the end.
+     */
+    DaemonThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, prefix + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,110 @@
+package com.googlecode.jslint4java;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of non-negative longs, such as timings in nanoseconds. Values are
+ * counted in buckets whose width grows with the value, so percentiles are accurate to within
+ * 12.5%, whatever the range, in a few kilobytes. The count, total and maximum are exact.
+ */
+final class Histogram {
+
+    /** Each power of two is split into this many buckets. */
+    private static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Which bucket does <i>value</i> go in? */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    /** The largest value which goes in <i>bucket</i>. */
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucket(Long.MAX_VALUE) + 1);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    private final AtomicLong total = new AtomicLong();
+
+    long getCount() {
+        return count.get();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /** The mean of the values recorded, or 0 if there are none. */
+    double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * The value which <i>percentile</i>% of the values recorded are no bigger than, or 0 if
+     * there are none.
+     */
+    long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be from 0 to 100: " + percentile);
+        }
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= wanted) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    long getTotal() {
+        return total.get();
+    }
+
+    void record(long value) {
+        if (value < 0) {
+            // A clock going backwards; don't make things worse.
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // Somebody else recorded a value: try again.
+        }
+    }
+
+    /** Forget everything. Values recorded at the same time may be partly forgotten. */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        max.set(0);
+        total.set(0);
+    }
+}
@@ -5,10 +5,20 @@ import org.mozilla.javascript.Scriptable;
 /**
  * A single issue with the code that is being checked for problems.
  *
+ * <p>
+ * Issues are kept small, as a big run can hold on to a great many of them. Reasons, raw messages
+ * and names are shared between all issues which have the same ones. Issues on the same line share
+ * a single copy of it as their evidence, unless an {@link IssueBuilder#evidenceWidth(int)
+ * evidence width} is set, in which case each keeps just an excerpt around its character. That's
+ * worth doing for minified code, where the line can be the whole file.
+ *
  * @author dom
  */
 public class Issue {
 
+    /** An evidence width which keeps the whole line. */
+    public static final int WHOLE_LINE = -1;
+
     /**
      * Allow creating an issue in a couple of different ways.
      */
@@ -16,17 +26,31 @@ public class Issue {
 
         /** Build from a JavaScript context */
         public static Issue fromJavaScript(String systemId, Scriptable err) {
+            return fromJavaScript(systemId, err, WHOLE_LINE);
+        }
+
+        /**
+         * Build from a JavaScript context, keeping at most <i>evidenceWidth</i> characters of
+         * evidence.
+         *
+         * @see #evidenceWidth(int)
+         */
+        public static Issue fromJavaScript(String systemId, Scriptable err, int evidenceWidth) {
             // These used to be zero-based, but now _appear_ to be one-based.
             int line = Util.intValue("line", err);
             int col = Util.intValue("character", err);
+            // JSLint hands every issue on a line the same evidence string, so it stays shared.
             return new IssueBuilder(systemId, line, col, Util.stringValue("reason", err))
                     .evidence(Util.stringValue("evidence", err))
                     .raw(Util.stringValue("raw", err))
+                    .evidenceWidth(evidenceWidth)
                     .build();
         }
 
         private final int character;
         private String evidence;
+        private int evidenceOffset;
+        private int evidenceWidth = WHOLE_LINE;
         private final int line;
         private String raw;
         private final String reason;
@@ -40,7 +64,17 @@ public class Issue {
         }
 
         public Issue build() {
-            return new Issue(this);
+            String excerpt = evidence;
+            int offset = evidenceOffset;
+            if (evidenceWidth >= 0 && evidence != null && evidence.length() > evidenceWidth) {
+                // Centre the excerpt on the character, as far as the evidence allows.
+                int start = Math.max(0, Math.min(character - 1 - evidenceOffset
+                        - evidenceWidth / 2, evidence.length() - evidenceWidth));
+                // Copy, so that the line itself can be let go of.
+                excerpt = new String(evidence.substring(start, start + evidenceWidth));
+                offset += start;
+            }
+            return new Issue(this, excerpt, offset);
         }
 
         public IssueBuilder evidence(String evidence) {
@@ -48,6 +82,30 @@ public class Issue {
             return this;
         }
 
+        /**
+         * Say that the evidence is an excerpt, which starts <i>offset</i> characters into the
+         * line.
+         */
+        public IssueBuilder evidenceOffset(int offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("offset may not be negative: " + offset);
+            }
+            this.evidenceOffset = offset;
+            return this;
+        }
+
+        /**
+         * Keep at most <i>width</i> characters of evidence, from around the character the issue
+         * is at. By default, or with {@link Issue#WHOLE_LINE}, the whole line is kept.
+         */
+        public IssueBuilder evidenceWidth(int width) {
+            if (width < WHOLE_LINE) {
+                throw new IllegalArgumentException("invalid evidence width: " + width);
+            }
+            this.evidenceWidth = width;
+            return this;
+        }
+
         public IssueBuilder raw(String raw) {
             this.raw = raw;
             return this;
@@ -56,18 +114,20 @@ public class Issue {
 
     private final int character;
     private final String evidence;
+    private final int evidenceOffset;
     private final int line;
     private final String raw;
     private final String reason;
     private final String systemId;
 
-    private Issue(IssueBuilder ib) {
-        systemId = ib.systemId;
-        reason = ib.reason;
+    private Issue(IssueBuilder ib, String evidence, int evidenceOffset) {
+        systemId = StringInterner.ISSUES.intern(ib.systemId);
+        reason = StringInterner.ISSUES.intern(ib.reason);
         line = ib.line;
         character = ib.character;
-        evidence = ib.evidence;
-        raw = ib.raw;
+        this.evidence = evidence;
+        this.evidenceOffset = evidenceOffset;
+        raw = StringInterner.ISSUES.intern(ib.raw);
     }
 
     /**
@@ -78,12 +138,21 @@ public class Issue {
     }
 
     /**
-     * @return the contents of the line in which this issue occurs.
+     * @return the contents of the line in which this issue occurs, or an excerpt of it if an
+     *         evidence width was set.
      */
     public String getEvidence() {
         return evidence;
     }
 
+    /**
+     * @return how far into the line the {@link #getEvidence() evidence} starts. This is 0 unless
+     *         the evidence is an excerpt.
+     */
+    public int getEvidenceOffset() {
+        return evidenceOffset;
+    }
+
     /**
      * @return the number of the line on which this issue occurs.
      */
@@ -3,7 +3,7 @@ package com.googlecode.jslint4java;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -24,6 +24,10 @@ import com.googlecode.jslint4java.JSLintResult.ResultBuilder;
 /**
  * A utility class to check JavaScript source code for potential problems.
  *
+ * <p>
+ * A single instance only lints one file at a time. Use a {@link JSLintPool} to lint several
+ * files in parallel.
+ *
  * @author dom
  * @see JSLintBuilder Construction of JSLint
  */
@@ -78,20 +82,42 @@ public class JSLint {
         }
     }
 
-    private final Map<Option, Object> options = new EnumMap<Option, Object>(Option.class);
+    /** How many different {@link LintOptions} to keep the JavaScript form of. */
+    private static final int OPTIONS_CACHE_SIZE = 16;
+
+    private volatile LintOptions options = LintOptions.EMPTY;
+
+    /** JavaScript versions of recently used {@link LintOptions}, most recent last. */
+    @SuppressWarnings("serial")
+    private final Map<LintOptions, Scriptable> optionsCache =
+            new LinkedHashMap<LintOptions, Scriptable>(OPTIONS_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<LintOptions, Scriptable> eldest) {
+            return size() > OPTIONS_CACHE_SIZE;
+        }
+    };
 
     private final ContextFactory contextFactory;
 
+    private volatile int evidenceWidth = Issue.WHOLE_LINE;
+
     private final Function lintFunc;
 
+    private volatile LintMetrics metrics;
+
+    private volatile ResultDetail resultDetail = ResultDetail.FULL_REPORT;
+
+    private final String scriptDigest;
+
     /**
      * Create a new {@link JSLint} object. You must pass in a {@link Function}, which is the JSLINT
-     * function defined by jslint.js. You are expected to use {@link JSLintBuilder} rather than
-     * calling this constructor.
+     * function defined by jslint.js, and a checksum of jslint.js. You are expected to use
+     * {@link JSLintBuilder} rather than calling this constructor.
      */
-    JSLint(ContextFactory contextFactory, Function lintFunc) {
+    JSLint(ContextFactory contextFactory, Function lintFunc, String scriptDigest) {
         this.contextFactory = contextFactory;
         this.lintFunc = lintFunc;
+        this.scriptDigest = scriptDigest;
     }
 
     /**
@@ -102,7 +128,9 @@ public class JSLint {
      *            Any {@link Option}.
      */
     public void addOption(Option o) {
-        options.put(o, Boolean.TRUE);
+        synchronized (optionsCache) {
+            options = new LintOptions.Builder(options).addOption(o).build();
+        }
     }
 
     /**
@@ -115,46 +143,86 @@ public class JSLint {
      *            The value to associate with <i>o</i>.
      */
     public void addOption(Option o, String arg) {
-        OptionParser optionParser = new OptionParser();
-        options.put(o, optionParser.parse(o.getType(), arg));
+        synchronized (optionsCache) {
+            options = new LintOptions.Builder(options).addOption(o, arg).build();
+        }
     }
 
     /**
      * Set options that should always be present. This mirrors what jslint.com
      * does.
      */
-    private void applyDefaultOptions() {
-        if (!options.containsKey(Option.INDENT)) {
-            addOption(Option.INDENT, DEFAULT_INDENT);
+    private LintOptions applyDefaultOptions(LintOptions opts) {
+        if (opts.contains(Option.INDENT) && opts.contains(Option.MAXERR)) {
+            return opts;
         }
-        if (!options.containsKey(Option.MAXERR)) {
-            addOption(Option.MAXERR, DEFAULT_MAXERR);
+        LintOptions.Builder b = new LintOptions.Builder(opts);
+        if (!opts.contains(Option.INDENT)) {
+            b.addOption(Option.INDENT, DEFAULT_INDENT);
         }
+        if (!opts.contains(Option.MAXERR)) {
+            b.addOption(Option.MAXERR, DEFAULT_MAXERR);
+        }
+        return b.build();
+    }
+
+    /**
+     * Assemble the {@link JSLintResult} object, with as much detail as <i>detail</i> asks for,
+     * from the most recent lint. Package private so that it can be benchmarked on its own.
+     */
+    JSLintResult buildResults(String systemId, long startNanos, long endNanos,
+            long instructionCount, ResultDetail detail) {
+        return buildResults(systemId, startNanos, endNanos, instructionCount, detail, null);
     }
 
     /**
-     * Assemble the {@link JSLintResult} object.
+     * Assemble the {@link JSLintResult} object, with as much detail as <i>detail</i> asks for,
+     * from the most recent lint, under the eye of <i>watchdog</i> (if not null). Building the
+     * report runs JSLint's JavaScript again, so it has to be kept within the same limits.
+     *
+     * @throws LintWatchdog.AbortedException
+     *             if the watchdog abandons the lint.
      */
     @NeedsContext
-    private JSLintResult buildResults(final String systemId, final long startNanos, final long endNanos) {
-        return (JSLintResult) contextFactory.call(new ContextAction() {
+    private JSLintResult buildResults(final String systemId, final long startNanos,
+            final long endNanos, final long instructionCount, final ResultDetail detail,
+            final LintWatchdog watchdog) {
+        final LintMetrics m = metrics;
+        final Object trace = Tracing.INSTANCE.buildStarted();
+        JSLintResult result = (JSLintResult) contextFactory.call(new ContextAction() {
             public Object run(Context cx) {
+                if (watchdog == null) {
+                    return gather(cx).build();
+                }
+                watchdog.check();
+                cx.putThreadLocal(LintWatchdog.KEY, watchdog);
+                try {
+                    // Count what building the result ran, too.
+                    return gather(cx).instructionCount(watchdog.getInstructionCount()).build();
+                } finally {
+                    cx.removeThreadLocal(LintWatchdog.KEY);
+                }
+            }
+
+            private ResultBuilder gather(Context cx) {
+                long phaseStart = m == null ? 0 : System.nanoTime();
                 ResultBuilder b = new JSLintResult.ResultBuilder(systemId);
                 b.duration(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+                b.instructionCount(instructionCount);
                 for (Issue issue : readErrors(systemId)) {
                     b.addIssue(issue);
                 }
-
-                // Collect a report on what we've just linted.
-                b.report(callReport(false));
+                if (m != null) {
+                    phaseStart = phaseCompleted(m, systemId, LintPhase.ISSUES, phaseStart);
+                }
+                if (detail == ResultDetail.ISSUES_ONLY) {
+                    return b;
+                }
 
                 // Extract JSLINT.data() output and set it on the result.
-                Object o = lintFunc.get("data", lintFunc);
+                Scriptable data = callData(cx);
                 // Real JSLINT will always have this, but some of my test stubs don't.
-                if (o != UniqueTag.NOT_FOUND) {
-                    Function reportFunc = (Function) o;
-                    Scriptable data = (Scriptable) reportFunc.call(cx, lintFunc, null,
-                            Context.emptyArgs);
+                if (data != null) {
                     for (String global : Util.listValueOfType("global", String.class, data)) {
                         b.addGlobal(global);
                     }
@@ -172,10 +240,50 @@ public class JSLint {
                         b.addProperty(id.toString());
                     }
                 }
+                if (m != null) {
+                    phaseStart = phaseCompleted(m, systemId, LintPhase.DATA, phaseStart);
+                }
+
+                if (detail == ResultDetail.FULL_REPORT) {
+                    // Collect a report on what we've just linted.
+                    b.report(data == null ? "" : report(cx, systemId, data, false));
+                    if (m != null) {
+                        phaseCompleted(m, systemId, LintPhase.REPORT, phaseStart);
+                    }
+                }
 
-                return b.build();
+                return b;
             }
         });
+        if (trace != null) {
+            Tracing.INSTANCE.buildFinished(trace, systemId, detail, result.getIssues().size());
+        }
+        return result;
+    }
+
+    /**
+     * Tell <i>m</i> that <i>phase</i>, which started at <i>startNanos</i>, has finished.
+     *
+     * @return the time now, for the start of the next phase.
+     */
+    private static long phaseCompleted(LintMetrics m, String systemId, LintPhase phase,
+            long startNanos) {
+        long now = System.nanoTime();
+        m.phaseCompleted(systemId, phase, now - startNanos);
+        return now;
+    }
+
+    /**
+     * Call {@code JSLINT.data()}, which describes the most recent lint.
+     *
+     * @return the data, or null if this JSLINT doesn't have a data() function.
+     */
+    private Scriptable callData(Context cx) {
+        Object value = lintFunc.get("data", lintFunc);
+        if (value == UniqueTag.NOT_FOUND) {
+            return null;
+        }
+        return (Scriptable) ((Function) value).call(cx, lintFunc, null, Context.emptyArgs);
     }
 
     /**
@@ -189,54 +297,100 @@ public class JSLint {
     @NeedsContext
     private String callReport(final boolean errorsOnly) {
         return (String) contextFactory.call(new ContextAction() {
-            // TODO: This would probably benefit from injecting an API to manage JSLint.
             public Object run(Context cx) {
-                Function fn = null;
-                Object value = null;
-                StringBuilder sb = new StringBuilder();
-
-                // Look up JSLINT.data.
-                value = lintFunc.get("data", lintFunc);
-                if (value == UniqueTag.NOT_FOUND) {
-                    return "";
-                }
-                fn = (Function) value;
-                // Call JSLINT.data().  This returns a JS data structure that we need below.
-                Object data = fn.call(cx, lintFunc, null, Context.emptyArgs);
-
-                // Look up JSLINT.error_report.
-                value = lintFunc.get("error_report", lintFunc);
-                // Shouldn't happen ordinarily, but some of my tests don't have it.
-                if (value != UniqueTag.NOT_FOUND) {
-                    fn = (Function) value;
-                    // Call JSLint.report().
-                    sb.append(fn.call(cx, lintFunc, null, new Object[] { data }));
-                }
-
-                if (!errorsOnly) {
-                    // Look up JSLINT.report.
-                    value = lintFunc.get("report", lintFunc);
-                    // Shouldn't happen ordinarily, but some of my tests don't have it.
-                    if (value != UniqueTag.NOT_FOUND) {
-                        fn = (Function) value;
-                        // Call JSLint.report().
-                        sb.append(fn.call(cx, lintFunc, null, new Object[] { data }));
-                    }
-                }
-                return sb.toString();
+                Scriptable data = callData(cx);
+                return data == null ? "" : report(cx, null, data, errorsOnly);
             }
         });
     }
 
+    /**
+     * Turn the output of {@code JSLINT.data()} about <i>systemId</i> (which may be null) into an
+     * HTML report.
+     */
+    // TODO: This would probably benefit from injecting an API to manage JSLint.
+    private String report(Context cx, String systemId, Scriptable data, boolean errorsOnly) {
+        Object trace = Tracing.INSTANCE.reportStarted();
+        Function fn = null;
+        Object value = null;
+        StringBuilder sb = new StringBuilder();
+
+        // Look up JSLINT.error_report.
+        value = lintFunc.get("error_report", lintFunc);
+        // Shouldn't happen ordinarily, but some of my tests don't have it.
+        if (value != UniqueTag.NOT_FOUND) {
+            fn = (Function) value;
+            // Call JSLint.report().
+            sb.append(fn.call(cx, lintFunc, null, new Object[] { data }));
+        }
+
+        if (!errorsOnly) {
+            // Look up JSLINT.report.
+            value = lintFunc.get("report", lintFunc);
+            // Shouldn't happen ordinarily, but some of my tests don't have it.
+            if (value != UniqueTag.NOT_FOUND) {
+                fn = (Function) value;
+                // Call JSLint.report().
+                sb.append(fn.call(cx, lintFunc, null, new Object[] { data }));
+            }
+        }
+        if (trace != null) {
+            Tracing.INSTANCE.reportFinished(trace, systemId, errorsOnly, sb.length());
+        }
+        return sb.toString();
+    }
+
+    @NeedsContext
+    private void doLint(final String javaScript, final LintOptions opts) {
+        doLint(null, javaScript, opts, null, null);
+    }
+
+    /**
+     * Run JSLINT over <i>javaScript</i>, under the eye of <i>watchdog</i> (if not null), which
+     * also counts the instructions run. Timings go to <i>m</i> (if not null).
+     *
+     * @throws LintWatchdog.AbortedException
+     *             if the watchdog abandons the lint.
+     */
     @NeedsContext
-    private void doLint(final String javaScript) {
+    private void doLint(final String systemId, final String javaScript, final LintOptions opts,
+            final LintWatchdog watchdog, final LintMetrics m) {
         contextFactory.call(new ContextAction() {
             public Object run(Context cx) {
+                long phaseStart = m == null ? 0 : System.nanoTime();
                 String src = javaScript == null ? "" : javaScript;
-                Object[] args = new Object[] { src, optionsAsJavaScriptObject() };
-                // JSLINT actually returns a boolean, but we ignore it as we always go
-                // and look at the errors in more detail.
-                lintFunc.call(cx, lintFunc, null, args);
+                Object[] args = new Object[] { src, optionsAsJavaScriptObject(cx, opts) };
+                if (m != null) {
+                    phaseStart = phaseCompleted(m, systemId, LintPhase.OPTIONS, phaseStart);
+                }
+                Object trace = Tracing.INSTANCE.lintStarted();
+                String outcome = "failed";
+                try {
+                    if (watchdog != null) {
+                        watchdog.check();
+                        cx.putThreadLocal(LintWatchdog.KEY, watchdog);
+                    }
+                    // JSLINT actually returns a boolean, but we ignore it as we always go
+                    // and look at the errors in more detail.
+                    lintFunc.call(cx, lintFunc, null, args);
+                    outcome = "ok";
+                } catch (RuntimeException e) {
+                    outcome = Tracing.outcome(e);
+                    throw e;
+                } finally {
+                    if (watchdog != null) {
+                        cx.removeThreadLocal(LintWatchdog.KEY);
+                    }
+                    if (trace != null) {
+                        Tracing.INSTANCE.lintFinished(trace, systemId, src.length(),
+                                opts.hashCode(),
+                                watchdog == null ? 0 : watchdog.getInstructionCount(),
+                                outcome.equals("ok") ? errorCount() : 0, outcome);
+                    }
+                }
+                if (m != null) {
+                    phaseCompleted(m, systemId, LintPhase.LINT, phaseStart);
+                }
                 return null;
             }
         });
@@ -249,6 +403,43 @@ public class JSLint {
         return (String) lintFunc.get("edition", lintFunc);
     }
 
+    /**
+     * Return a checksum of the jslint.js in use. Unlike the {@link #getEdition() edition}, this
+     * changes whenever jslint.js does, so it's what to key stored results on.
+     */
+    public String getScriptDigest() {
+        return scriptDigest;
+    }
+
+    /**
+     * How many characters of evidence each {@link Issue} keeps, or {@link Issue#WHOLE_LINE}.
+     */
+    public int getEvidenceWidth() {
+        return evidenceWidth;
+    }
+
+    /**
+     * Where timings of each lint are sent, or null if nowhere.
+     */
+    public LintMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Return the options set with {@link #addOption(Option)}, {@link #addOption(Option, String)}
+     * or {@link #setOptions(LintOptions)}.
+     */
+    public LintOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * How much detail is gathered into each {@link JSLintResult}.
+     */
+    public ResultDetail getResultDetail() {
+        return resultDetail;
+    }
+
     /**
      * Check for problems in a {@link Reader} which contains JavaScript source.
      *
@@ -263,6 +454,24 @@ public class JSLint {
         return lint(systemId, Util.readerToString(reader));
     }
 
+    /**
+     * Check for problems in a {@link Reader} which contains JavaScript source, using
+     * <i>options</i> instead of the options set on this object.
+     *
+     * @param systemId
+     *            a filename
+     * @param reader
+     *            a {@link Reader} over JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, Reader reader, LintOptions options)
+            throws IOException {
+        return lint(systemId, Util.readerToString(reader), options);
+    }
+
     /**
      * Check for problems in JavaScript source.
      *
@@ -274,38 +483,118 @@ public class JSLint {
      * @return a {@link JSLintResult}.
      */
     public JSLintResult lint(String systemId, String javaScript) {
+        return lint(systemId, javaScript, options);
+    }
+
+    /**
+     * Check for problems in JavaScript source, using <i>options</i> instead of the options set on
+     * this object.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, String javaScript, LintOptions options) {
+        return lint(systemId, javaScript, options, LintLimits.NONE);
+    }
+
+    /**
+     * Check for problems in JavaScript source, using <i>options</i>, and giving up if
+     * <i>limits</i> are exceeded.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     * @param limits
+     *            when to abandon the lint.
+     *
+     * @return a {@link JSLintResult}. If the lint was abandoned, it's
+     *         {@link JSLintResult#isAborted() aborted}, and has no issues.
+     * @throws java.util.concurrent.CancellationException
+     *             if <i>limits</i> are {@link LintLimits#isInterruptible() interruptible} and the
+     *             thread is interrupted. Otherwise, interrupts don't affect the lint.
+     */
+    public JSLintResult lint(String systemId, String javaScript, LintOptions options,
+            LintLimits limits) {
         // This is synchronized, even though Rhino is thread safe, because we have multiple
         // accesses to the scope, which store state in between them.  This synchronized block
         // is slightly larger than I would like, but in practical terms, it doesn't make much
         // difference.  The cost of running lint is larger than the cost of pulling out the
-        // results.
+        // results.  If you need to lint in parallel, use a JSLintPool.
+        if (limits == null) {
+            throw new IllegalArgumentException("limits may not be null");
+        }
         synchronized (this) {
+            LintMetrics m = metrics;
             long before = System.nanoTime();
-            doLint(javaScript);
-            long after = System.nanoTime();
-            return buildResults(systemId, before, after);
+            // Always have a watchdog, even without limits, as it counts the instructions.
+            LintWatchdog watchdog = new LintWatchdog(limits, before);
+            JSLintResult result;
+            try {
+                doLint(systemId, javaScript, options, watchdog, m);
+                long after = System.nanoTime();
+                result = buildResults(systemId, before, after, watchdog.getInstructionCount(),
+                        resultDetail, watchdog);
+            } catch (LintWatchdog.AbortedException e) {
+                long after = System.nanoTime();
+                result = new ResultBuilder(systemId)
+                        .duration(TimeUnit.NANOSECONDS.toMillis(after - before))
+                        .instructionCount(watchdog.getInstructionCount())
+                        .aborted(e.getReason()).build();
+            }
+            return lintCompleted(m, javaScript, before, result);
         }
     }
 
+    /**
+     * Tell <i>m</i> (if not null) about a finished lint, which started at <i>startNanos</i>.
+     *
+     * @return <i>result</i>
+     */
+    private JSLintResult lintCompleted(LintMetrics m, String javaScript, long startNanos,
+            JSLintResult result) {
+        if (m != null) {
+            m.lintCompleted(result.getName(), javaScript == null ? 0 : javaScript.length(),
+                    result, System.nanoTime() - startNanos);
+        }
+        return result;
+    }
+
     /**
      * Turn the set of options into a JavaScript object, where the key is the
-     * name of the option and the value is true.
+     * name of the option and the value is true. This is only done once for each
+     * distinct set of options: JSLINT doesn't modify the object it's passed, so
+     * we can reuse it.
      */
-    @NeedsContext
-    private Scriptable optionsAsJavaScriptObject() {
-        return (Scriptable) contextFactory.call(new ContextAction() {
-            public Object run(Context cx) {
-                applyDefaultOptions();
-                Scriptable opts = cx.newObject(lintFunc);
-                for (Entry<Option, Object> entry : options.entrySet()) {
+    private Scriptable optionsAsJavaScriptObject(Context cx, LintOptions lintOptions) {
+        synchronized (optionsCache) {
+            Scriptable opts = optionsCache.get(lintOptions);
+            if (opts == null) {
+                opts = cx.newObject(lintFunc);
+                for (Entry<Option, Object> entry : applyDefaultOptions(lintOptions).entrySet()) {
                     String key = entry.getKey().getLowerName();
                     // Use our "custom" version in order to get native arrays.
                     Object value = Util.javaToJS(entry.getValue(), opts);
                     opts.put(key, opts, value);
                 }
-                return opts;
+                optionsCache.put(lintOptions, opts);
             }
-        });
+            return opts;
+        }
+    }
+
+    /** How many issues did the last lint find? */
+    private int errorCount() {
+        Object errors = lintFunc.get("errors", lintFunc);
+        return errors instanceof Scriptable ? Util.intValue("length", (Scriptable) errors) : 0;
     }
 
     private List<Issue> readErrors(String systemId) {
@@ -317,7 +606,7 @@ public class JSLint {
             // JSLINT spits out a null when it cannot proceed.
             // TODO Should probably turn i-1th issue into a "fatal".
             if (err != null) {
-                issues.add(IssueBuilder.fromJavaScript(systemId, err));
+                issues.add(IssueBuilder.fromJavaScript(systemId, err, evidenceWidth));
             }
         }
         return issues;
@@ -343,7 +632,7 @@ public class JSLint {
      */
     public String report(String javaScript, boolean errorsOnly) {
         // Run the lint function itself as prep.
-        doLint(javaScript);
+        doLint(javaScript, options);
 
         // The run the reporter.
         return callReport(errorsOnly);
@@ -353,6 +642,56 @@ public class JSLint {
      * Clear out all options that have been set with {@link #addOption(Option)}.
      */
     public void resetOptions() {
-        options.clear();
+        options = LintOptions.EMPTY;
+    }
+
+    /**
+     * Replace all options with <i>options</i>.
+     */
+    public void setOptions(LintOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options may not be null");
+        }
+        this.options = options;
+    }
+
+    /**
+     * Keep at most <i>width</i> characters of {@link Issue#getEvidence() evidence} in each issue,
+     * from around where the issue is. The default, {@link Issue#WHOLE_LINE}, keeps the whole line,
+     * which is shared by every issue on it. A small width saves a lot of memory when linting
+     * minified code, where a line may be the whole file.
+     *
+     * @throws IllegalArgumentException
+     *             if <i>width</i> is less than {@link Issue#WHOLE_LINE}.
+     */
+    public void setEvidenceWidth(int width) {
+        if (width < Issue.WHOLE_LINE) {
+            throw new IllegalArgumentException("invalid evidence width: " + width);
+        }
+        this.evidenceWidth = width;
+    }
+
+    /**
+     * Send timings of each lint to <i>metrics</i>, or nowhere if it's null. Without metrics,
+     * nothing extra is timed.
+     */
+    public void setMetrics(LintMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Choose how much detail to gather into each {@link JSLintResult}. The default is
+     * {@link ResultDetail#FULL_REPORT}, which includes an HTML report. If you only need
+     * {@link JSLintResult#getIssues()}, {@link ResultDetail#ISSUES_ONLY} is considerably quicker.
+     * Parts of the result which aren't gathered are left empty (or null, for the report).
+     *
+     * @param resultDetail
+     *            how much detail to gather.
+     */
+    public void setResultDetail(ResultDetail resultDetail) {
+        if (resultDetail == null) {
+            throw new IllegalArgumentException("resultDetail may not be null");
+        }
+        this.resultDetail = resultDetail;
     }
 }
@@ -0,0 +1,393 @@
+package com.googlecode.jslint4java;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Lint many sources in parallel, using the instances in a {@link JSLintPool}. Sources are read and
+ * linted on an {@link Executor}, and results are handed back as they become available, either via
+ * a {@link Callback} or an {@link Iterator}.
+ *
+ * <pre>
+ * JSLintBatch batch = new JSLintBatch(new JSLintBuilder().poolFromDefault(4));
+ * batch.lint(sources, new JSLintBatch.Callback() {
+ *     public void result(JSLintResult result) {
+ *         System.out.println(formatter.format(result));
+ *     }
+ * });
+ * </pre>
+ *
+ * <p>
+ * Pick the {@link Order} to suit: {@link Order#SUBMISSION} gives repeatable output, at the cost of
+ * holding on to results that finish early; {@link Order#COMPLETION} hands each result over as soon
+ * as it's ready. To do more than read and lint each source, such as consulting a
+ * {@link ResultCache}, supply a {@link Linter}.
+ */
+public class JSLintBatch {
+
+    /**
+     * Receives the results of a batch, one at a time.
+     */
+    public interface Callback {
+        /**
+         * Called once per source, on the thread that called
+         * {@link JSLintBatch#lint(Iterable, Callback)}.
+         */
+        void result(JSLintResult result);
+    }
+
+    /**
+     * Lints a single source. The default reads the source, and lints it with the pool's options.
+     */
+    public interface Linter {
+        /**
+         * Called once per source, on one of the batch's threads. <i>lint</i> has been borrowed
+         * from the pool for the duration of the call, and is configured with the pool's options.
+         *
+         * @param limits
+         *            the batch's limits. Pass them on to
+         *            {@link JSLint#lint(String, String, LintOptions, LintLimits)} so that the
+         *            batch can be cancelled part way through.
+         * @throws IOException
+         *             if the source can't be read.
+         */
+        JSLintResult lint(JSLint lint, LintSource source, LintLimits limits) throws IOException;
+    }
+
+    /** Which order results are handed back in. */
+    public enum Order {
+        /** As soon as each source has been linted. */
+        COMPLETION,
+        /** In the same order as the sources were given. */
+        SUBMISSION;
+    }
+
+    /**
+     * Thrown by the {@link Iterator} returned from {@link JSLintBatch#lint(Iterable)} when a
+     * source can't be read.
+     */
+    @SuppressWarnings("serial")
+    public static class SourceException extends RuntimeException {
+        private final LintSource source;
+
+        public SourceException(LintSource source, IOException cause) {
+            super(source.getName() + ": " + cause.getMessage(), cause);
+            this.source = source;
+        }
+
+        @Override
+        public IOException getCause() {
+            return (IOException) super.getCause();
+        }
+
+        /** The source that couldn't be read. */
+        public LintSource getSource() {
+            return source;
+        }
+    }
+
+    private static final Linter DEFAULT_LINTER = new Linter() {
+        public JSLintResult lint(JSLint lint, LintSource source, LintLimits limits)
+                throws IOException {
+            return lint.lint(source.getName(), source.read(), lint.getOptions(), limits);
+        }
+    };
+
+    /** Wraps an {@link IOException} on its way out of a task, so we know where it came from. */
+    @SuppressWarnings("serial")
+    private static class TaskIOException extends Exception {
+        private final LintSource source;
+
+        TaskIOException(LintSource source, IOException cause) {
+            super(cause);
+            this.source = source;
+        }
+    }
+
+    /**
+     * The tasks for one call to lint(), and their results.
+     */
+    private final class Run {
+        private final List<Future<JSLintResult>> futures = new ArrayList<Future<JSLintResult>>();
+
+        /** Tasks in the order they finish. Only used for {@link Order#COMPLETION}. */
+        private final BlockingQueue<Future<JSLintResult>> completed;
+
+        private final LintLimits limits;
+
+        private final Linter linter;
+
+        private int taken = 0;
+
+        Run(Iterable<? extends LintSource> sources, Order order, LintLimits limits, Linter linter) {
+            // So that cancelling stops lints part way through.
+            this.limits = limits.interruptible();
+            this.linter = linter;
+            completed = order == Order.COMPLETION ? new LinkedBlockingQueue<Future<JSLintResult>>()
+                    : null;
+            ExecutorService ownExecutor = null;
+            Executor exec = executor;
+            if (exec == null) {
+                // Daemon threads, so that an abandoned batch can't keep the JVM alive.
+                ownExecutor = Executors.newFixedThreadPool(pool.size(), new DaemonThreadFactory(
+                        "jslint-batch-"));
+                exec = ownExecutor;
+            }
+            try {
+                for (LintSource source : sources) {
+                    FutureTask<JSLintResult> task = newTask(source);
+                    futures.add(task);
+                    exec.execute(task);
+                }
+            } catch (RuntimeException e) {
+                // Nobody will ever collect the results, so don't leave them running.
+                cancel();
+                throw e;
+            } catch (Error e) {
+                cancel();
+                throw e;
+            } finally {
+                if (ownExecutor != null) {
+                    // The threads finish once the queued tasks are done.
+                    ownExecutor.shutdown();
+                }
+            }
+        }
+
+        void cancel() {
+            for (Future<JSLintResult> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        boolean hasNext() {
+            return taken < futures.size();
+        }
+
+        private FutureTask<JSLintResult> newTask(final LintSource source) {
+            Callable<JSLintResult> callable = new Callable<JSLintResult>() {
+                public JSLintResult call() throws TaskIOException, InterruptedException {
+                    LintMetrics m = pool.getMetrics();
+                    long before = m == null ? 0 : System.nanoTime();
+                    JSLint lint = pool.borrow();
+                    if (m != null) {
+                        m.phaseCompleted(source.getName(), LintPhase.WAIT, System.nanoTime()
+                                - before);
+                    }
+                    try {
+                        return linter.lint(lint, source, limits);
+                    } catch (IOException e) {
+                        throw new TaskIOException(source, e);
+                    } finally {
+                        pool.release(lint);
+                    }
+                }
+            };
+            return new FutureTask<JSLintResult>(callable) {
+                @Override
+                protected void done() {
+                    if (completed != null) {
+                        completed.add(this);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Wait for the next result. If it failed, everything else is cancelled.
+         *
+         * @throws SourceException
+         *             if the source couldn't be read.
+         */
+        JSLintResult next() throws InterruptedException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Future<JSLintResult> future;
+            if (completed == null) {
+                future = futures.get(taken);
+                // Let go of results as soon as they've been handed over.
+                futures.set(taken, null);
+            } else {
+                future = completed.take();
+            }
+            taken++;
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            } catch (ExecutionException e) {
+                cancel();
+                Throwable cause = e.getCause();
+                if (cause instanceof TaskIOException) {
+                    throw new SourceException(((TaskIOException) cause).source,
+                            (IOException) cause.getCause());
+                } else if (cause instanceof InterruptedException) {
+                    // Someone else shut down the executor.
+                    throw new CancellationException("interrupted");
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+    }
+
+    private final JSLintPool pool;
+
+    private final Executor executor;
+
+    private volatile Order order = Order.SUBMISSION;
+
+    private volatile LintLimits limits = LintLimits.NONE;
+
+    private volatile Linter linter = DEFAULT_LINTER;
+
+    /**
+     * Create a {@link JSLintBatch} which lints on its own threads, one for each instance in
+     * <i>pool</i>. The threads only live as long as each batch.
+     */
+    public JSLintBatch(JSLintPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Create a {@link JSLintBatch} which lints on <i>executor</i>. There's no point in the
+     * executor having more threads than <i>pool</i> has instances.
+     */
+    public JSLintBatch(JSLintPool pool, Executor executor) {
+        this.pool = pool;
+        this.executor = executor;
+    }
+
+    /** The limits on each lint. */
+    public LintLimits getLimits() {
+        return limits;
+    }
+
+    /** What lints each source. */
+    public Linter getLinter() {
+        return linter;
+    }
+
+    /** Which order results are handed back in. */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Lint all of <i>sources</i>, returning the results as they become available. All sources are
+     * queued for linting straight away.
+     *
+     * <p>
+     * The iterator's {@link Iterator#next()} waits for the next result. If a source can't be read,
+     * it throws a {@link SourceException} and the remaining work is cancelled. If the waiting
+     * thread is interrupted, it throws a {@link CancellationException}, with the thread's
+     * interrupt status left set.
+     */
+    public Iterator<JSLintResult> lint(Iterable<? extends LintSource> sources) {
+        final Run run = new Run(sources, order, limits, linter);
+        return new Iterator<JSLintResult>() {
+            public boolean hasNext() {
+                return run.hasNext();
+            }
+
+            public JSLintResult next() {
+                try {
+                    return run.next();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("interrupted");
+                }
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Lint all of <i>sources</i>, passing each result to <i>callback</i> as it becomes available.
+     * This returns once every source has been handed over.
+     *
+     * @throws IOException
+     *             if a source can't be read. The remaining work is cancelled.
+     * @throws InterruptedException
+     *             if interrupted while waiting. The remaining work is cancelled.
+     */
+    public void lint(Iterable<? extends LintSource> sources, Callback callback)
+            throws IOException, InterruptedException {
+        Run run = new Run(sources, order, limits, linter);
+        boolean finished = false;
+        try {
+            while (run.hasNext()) {
+                JSLintResult result;
+                try {
+                    result = run.next();
+                } catch (SourceException e) {
+                    throw e.getCause();
+                }
+                callback.result(result);
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                run.cancel();
+            }
+        }
+    }
+
+    /**
+     * Set limits on each lint in later batches. Lints which exceed them return
+     * {@link JSLintResult#isAborted() aborted} results. Share a {@link CancellationToken} or a
+     * {@link LintLimits.Builder#deadline(long) deadline} between them to abandon a whole batch.
+     * The default is {@link LintLimits#NONE}.
+     */
+    public void setLimits(LintLimits limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("limits may not be null");
+        }
+        this.limits = limits;
+    }
+
+    /**
+     * Choose what lints each source in later batches. The default reads the source, and lints it
+     * with the pool's options.
+     */
+    public void setLinter(Linter linter) {
+        if (linter == null) {
+            throw new IllegalArgumentException("linter may not be null");
+        }
+        this.linter = linter;
+    }
+
+    /**
+     * Choose which order results are handed back in. The default is {@link Order#SUBMISSION}.
+     */
+    public void setOrder(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("order may not be null");
+        }
+        this.order = order;
+    }
+}
@@ -7,24 +7,176 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
-import org.mozilla.javascript.Function;
-import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Script;
 
 /**
  * Construct {@link JSLint} instances.
  *
+ * <p>
+ * jslint.js is only parsed and compiled once per call, however many instances are made from it.
+ * The default jslint.js is compiled to a class when jslint4java is built, so
+ * {@link #fromDefault()} doesn't need to compile anything.
+ *
  * @author hdm
  */
 public class JSLintBuilder {
     private static final String JSLINT_FILE = "com/googlecode/jslint4java/jslint.js";
 
+    /** The default jslint.js, compiled during the build. See {@link Precompiler}. */
+    static final String PRECOMPILED_JSLINT =
+            "com.googlecode.jslint4java.compiled.DefaultJSLintScript";
+
     private static final Charset UTF8 = Charset.forName("UTF-8");
 
-    private ContextFactory contextFactory = new ContextFactory();
+    /**
+     * Settings are changed under this object's lock, but read without it while compiling and
+     * creating instances, possibly on other threads. So the fields read that way are volatile.
+     */
+    private volatile JSLintContextFactory contextFactory = new JSLintContextFactory(
+            JSLintContextFactory.DEFAULT_OPTIMIZATION_LEVEL);
+
+    /** The optimization level asked for, or null for the defaults. */
+    private volatile Integer optimizationLevel;
+
+    /** How long each lint may run for, or null for no limit. */
+    private Long maxTimeNanos;
+
+    /** How often the instruction observer runs. */
+    private int observerQuantum = JSLintContextFactory.DEFAULT_OBSERVER_QUANTUM;
+
+    /** The compiled default jslint.js, if we've needed it yet. Only used under the lock. */
+    private JSLintScript defaultScript;
+
+    /** Where to keep compiled classes between runs, if anywhere. */
+    private volatile ClassCache classCache;
+
+    /** Who to tell about each JavaScript call, if anyone. */
+    private JSLintProfiler profiler;
+
+    /**
+     * Keep jslint.js compiled to JVM classes in <i>directory</i>. The first time a given jslint.js
+     * is seen, it is compiled at Rhino's highest optimization level and the classes are written
+     * out. Later runs (in this or any other process) load those classes instead of compiling
+     * again. The directory is created if it doesn't exist.
+     *
+     * @param directory
+     *            where to keep the compiled classes.
+     * @return this
+     */
+    public synchronized JSLintBuilder classCacheDirectory(File directory) {
+        classCache = new ClassCache(directory);
+        defaultScript = null;
+        return this;
+    }
+
+    /**
+     * Parse and compile jslint.js, ready to create instances from.
+     */
+    @NeedsContext
+    private JSLintScript compile(Reader reader, String name) throws IOException {
+        Object trace = Tracing.INSTANCE.compileStarted();
+        // Read each setting once, in case another thread changes it part way through.
+        JSLintContextFactory factory = contextFactory;
+        ClassCache cache = classCache;
+        int level = factory.getOptimizationLevel();
+        String source = null;
+        String outcome = "failed";
+        try {
+            Context cx = factory.enterContext();
+            source = Util.readerToString(reader);
+            Script script;
+            // The interpreter doesn't produce classes, so there's nothing to cache.
+            if (cache == null || level < 0) {
+                script = cx.compileString(source, name, 1, null);
+            } else {
+                script = cache.compile(cx, source, name, classCacheOptimizationLevel());
+            }
+            outcome = "ok";
+            return new JSLintScript(script, name, JSLintScript.digest(source));
+        } finally {
+            Context.exit();
+            if (trace != null) {
+                Tracing.INSTANCE.compileFinished(trace, name,
+                        source == null ? 0 : source.length(), level, outcome);
+            }
+        }
+    }
+
+    /**
+     * The optimization level to store classes in the class cache at. Unless told otherwise, we
+     * compile at the highest level, as the result is reused.
+     */
+    private int classCacheOptimizationLevel() {
+        Integer level = optimizationLevel;
+        return level == null ? ClassCache.OPTIMIZATION_LEVEL : level;
+    }
+
+    /**
+     * The optimization level to run at, or null for the defaults. Profiling needs the
+     * interpreter, whatever was asked for.
+     */
+    private Integer effectiveOptimizationLevel() {
+        return profiler != null ? Integer.valueOf(-1) : optimizationLevel;
+    }
+
+    /**
+     * Return the default jslint.js as compiled during the build, or null if it isn't available
+     * (e.g. when running from an IDE which didn't run the build step), or if it wasn't compiled at
+     * the optimization level we want.
+     */
+    private Script loadPrecompiledScript() {
+        Integer level = effectiveOptimizationLevel();
+        if (level != null && level != ClassCache.OPTIMIZATION_LEVEL) {
+            return null;
+        }
+        try {
+            Class<?> cls = Class.forName(PRECOMPILED_JSLINT, true, getClass().getClassLoader());
+            return (Script) cls.newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return the compiled default jslint.js, preferring the copy compiled during the build, and
+     * compiling it if need be.
+     */
+    private synchronized JSLintScript defaultScript() {
+        if (defaultScript == null) {
+            Script precompiled = loadPrecompiledScript();
+            try {
+                if (precompiled != null) {
+                    // The class doesn't keep its source, so read that to checksum it. It's still
+                    // much quicker than compiling.
+                    Reader reader = classpathReader(JSLINT_FILE, UTF8);
+                    String source;
+                    try {
+                        source = Util.readerToString(reader);
+                    } finally {
+                        reader.close();
+                    }
+                    defaultScript = new JSLintScript(precompiled, JSLINT_FILE,
+                            JSLintScript.digest(source));
+                } else {
+                    defaultScript = compile(classpathReader(JSLINT_FILE, UTF8), JSLINT_FILE);
+                }
+            } catch (IOException e) {
+                // We wrap and rethrow, as there's nothing a caller can do in this
+                // case.
+                throw new RuntimeException(e);
+            }
+        }
+        return defaultScript;
+    }
 
     /**
      * Initialize the scope from a jslint.js found in the classpath. Assumes a
@@ -52,9 +204,12 @@ public class JSLintBuilder {
      *             if there are any problems reading the resource.
      */
     public JSLint fromClasspathResource(String resource, Charset encoding) throws IOException {
-        Reader reader = new BufferedReader(new InputStreamReader(getClass().getClassLoader()
+        return fromReader(classpathReader(resource, encoding), resource);
+    }
+
+    private Reader classpathReader(String resource, Charset encoding) {
+        return new BufferedReader(new InputStreamReader(getClass().getClassLoader()
                 .getResourceAsStream(resource), encoding));
-        return fromReader(reader, resource);
     }
 
     /**
@@ -65,13 +220,7 @@ public class JSLintBuilder {
      *             if we fail to load the default jslint.js.
      */
     public JSLint fromDefault() {
-        try {
-            return fromClasspathResource(JSLINT_FILE);
-        } catch (IOException e) {
-            // We wrap and rethrow, as there's nothing a caller can do in this
-            // case.
-            throw new RuntimeException(e);
-        }
+        return defaultScript().newInstance(contextFactory);
     }
 
     /**
@@ -115,17 +264,149 @@ public class JSLintBuilder {
      * @throws IOException
      *             if there are any problems reading from {@code reader} .
      */
-    @NeedsContext
     public JSLint fromReader(Reader reader, String name) throws IOException {
-        try {
-            Context cx = contextFactory.enterContext();
-            ScriptableObject scope = cx.initStandardObjects();
-            cx.evaluateReader(scope, reader, name, 1, null);
-            Function lintFunc = (Function) scope.get("JSLINT", scope);
-            return new JSLint(contextFactory, lintFunc);
-        } finally {
-            Context.exit();
+        return compile(reader, name).newInstance(contextFactory);
+    }
+
+    /**
+     * Compile jslint.js at the given Rhino optimization level. Level -1 runs jslint.js in Rhino's
+     * interpreter, which avoids compiling to JVM classes at all: this starts quickest, so suits
+     * linting a handful of files. Levels 0 to 9 compile to JVM classes, which takes longer up
+     * front, but lints faster; 9 suits long running processes.
+     *
+     * <p>
+     * If this isn't called, {@link #fromDefault()} uses a copy of jslint.js compiled at level 9
+     * during the build, and everything else is compiled at Rhino's default level of 0.
+     *
+     * @param level
+     *            -1 for the interpreter, or 0 to 9 to compile.
+     * @return this
+     * @throws IllegalArgumentException
+     *             if <i>level</i> is out of range.
+     */
+    public synchronized JSLintBuilder optimizationLevel(int level) {
+        if (!Context.isValidOptimizationLevel(level)) {
+            throw new IllegalArgumentException("invalid optimization level: " + level);
         }
+        optimizationLevel = level;
+        updateContextFactory();
+        return this;
+    }
+
+    /**
+     * Run Rhino's instruction observer every <i>instructions</i> instructions, instead of every
+     * {@value JSLintContextFactory#DEFAULT_OBSERVER_QUANTUM}. The observer enforces timeouts and
+     * {@link LintLimits}, and counts {@link JSLintResult#getInstructionCount() instructions}, so a
+     * smaller quantum makes all of those more precise, at some cost in speed.
+     *
+     * @param instructions
+     *            how many instructions to run between observations.
+     * @return this
+     * @throws IllegalArgumentException
+     *             if <i>instructions</i> is less than 1.
+     */
+    public synchronized JSLintBuilder observerQuantum(int instructions) {
+        if (instructions < 1) {
+            throw new IllegalArgumentException("observer quantum must be at least 1: "
+                    + instructions);
+        }
+        observerQuantum = instructions;
+        updateContextFactory();
+        return this;
+    }
+
+    /**
+     * Create a {@link JSLintPool} of <i>size</i> instances, each initialized with a default
+     * jslint.js.
+     *
+     * @param size
+     *            how many instances the pool should hold.
+     * @return a configured {@link JSLintPool}
+     * @throws RuntimeException
+     *             if we fail to load the default jslint.js.
+     */
+    public JSLintPool poolFromDefault(int size) {
+        return newPool(defaultScript(), size);
+    }
+
+    /**
+     * Create a {@link JSLintPool} of <i>size</i> instances, each initialized with the jslint.js
+     * passed in on the filesystem. Assumes a UTF-8 encoding.
+     *
+     * @param f
+     *            the path to jslint.js
+     * @param size
+     *            how many instances the pool should hold.
+     * @return a configured {@link JSLintPool}
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public JSLintPool poolFromFile(File f, int size) throws IOException {
+        return poolFromFile(f, UTF8, size);
+    }
+
+    /**
+     * Create a {@link JSLintPool} of <i>size</i> instances, each initialized with the jslint.js
+     * passed in on the filesystem.
+     *
+     * @param f
+     *            the path to jslint.js
+     * @param encoding
+     *            the encoding of the file
+     * @param size
+     *            how many instances the pool should hold.
+     * @return a configured {@link JSLintPool}
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public JSLintPool poolFromFile(File f, Charset encoding, int size) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), encoding));
+        return poolFromReader(reader, f.toString(), size);
+    }
+
+    /**
+     * Create a {@link JSLintPool} of <i>size</i> instances, each initialized with an arbitrary
+     * jslint.
+     *
+     * @param reader
+     *            an input source providing jslint.js.
+     * @param name
+     *            the name of the resource backed by the reader
+     * @param size
+     *            how many instances the pool should hold.
+     * @return a configured {@link JSLintPool}
+     * @throws IOException
+     *             if there are any problems reading from {@code reader} .
+     */
+    public JSLintPool poolFromReader(Reader reader, String name, int size) throws IOException {
+        return newPool(compile(reader, name), size);
+    }
+
+    private JSLintPool newPool(JSLintScript script, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("pool size must be at least 1: " + size);
+        }
+        List<JSLint> engines = new ArrayList<JSLint>(size);
+        for (int i = 0; i < size; i++) {
+            engines.add(script.newInstance(contextFactory));
+        }
+        return new JSLintPool(engines);
+    }
+
+    /**
+     * Profile jslint.js, recording the time spent in each of its functions and lines. Rhino can
+     * only do this in its interpreter, so everything is run at optimization level -1, whatever
+     * {@link #optimizationLevel(int)} says, and lints are much slower than usual.
+     *
+     * @param profiler
+     *            where to record the time, or null to stop profiling instances made from now on.
+     * @return this
+     * @see JSLintProfiler
+     */
+    public synchronized JSLintBuilder profiler(JSLintProfiler profiler) {
+        this.profiler = profiler;
+        updateContextFactory();
+        return this;
     }
 
     /**
@@ -148,8 +429,30 @@ public class JSLintBuilder {
      *            The unit of maxTime.
      * @return this
      */
-    public JSLintBuilder timeout(long maxTime, TimeUnit timeUnit) {
-        contextFactory = new TimeLimitedContextFactory(maxTime, timeUnit);
+    public synchronized JSLintBuilder timeout(long maxTime, TimeUnit timeUnit) {
+        maxTimeNanos = timeUnit.toNanos(maxTime);
+        updateContextFactory();
         return this;
     }
+
+    /**
+     * Make a new context factory to match our settings. Any compiled default jslint.js is thrown
+     * away, as it may not match either: e.g. timeouts need code compiled with instruction counting.
+     */
+    private void updateContextFactory() {
+        Integer effective = effectiveOptimizationLevel();
+        int level = effective == null ? JSLintContextFactory.DEFAULT_OPTIMIZATION_LEVEL
+                : effective;
+        JSLintContextFactory factory;
+        if (maxTimeNanos == null) {
+            factory = new JSLintContextFactory(level, observerQuantum);
+        } else {
+            factory = new TimeLimitedContextFactory(maxTimeNanos, TimeUnit.NANOSECONDS, level,
+                    observerQuantum);
+        }
+        factory.setProfiler(profiler);
+        // Only publish it once it's ready.
+        contextFactory = factory;
+        defaultScript = null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.googlecode.jslint4java;
+
+import java.util.concurrent.CancellationException;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+
+/**
+ * A ContextFactory whose contexts compile JavaScript at a fixed optimization level, and which stop
+ * running JavaScript when the {@link LintLimits} of the lint in progress are exceeded (including,
+ * if they're {@link LintLimits#isInterruptible() interruptible}, when its thread is interrupted).
+ *
+ * <p>
+ * Level -1 runs everything in Rhino's interpreter, which is quickest to start but slowest to run.
+ * Levels 0 to 9 compile to JVM classes; higher levels take longer to compile but produce faster
+ * code. Rhino's own default is 0.
+ *
+ * <p>
+ * The instruction observer always runs, as it counts the instructions in every
+ * {@link JSLintResult}. Compiled code pays for that with the counting Rhino builds into it: at
+ * level 9, lints run roughly 10-15% slower than without it. The interpreter hardly notices.
+ *
+ * @see Context#setOptimizationLevel(int)
+ */
+public class JSLintContextFactory extends ContextFactory {
+
+    /** Rhino's default optimization level. */
+    public static final int DEFAULT_OPTIMIZATION_LEVEL = 0;
+
+    /** By default, run the instruction observer after this many instructions. */
+    public static final int DEFAULT_OBSERVER_QUANTUM = 10000;
+
+    private final int observerQuantum;
+
+    private final int optimizationLevel;
+
+    private JSLintProfiler profiler;
+
+    /**
+     * Create a new {@link JSLintContextFactory}.
+     *
+     * @param optimizationLevel
+     *            -1 for the interpreter, or 0 to 9 to compile.
+     * @throws IllegalArgumentException
+     *             if <i>optimizationLevel</i> is out of range.
+     */
+    public JSLintContextFactory(int optimizationLevel) {
+        this(optimizationLevel, DEFAULT_OBSERVER_QUANTUM);
+    }
+
+    /**
+     * Create a new {@link JSLintContextFactory}.
+     *
+     * @param optimizationLevel
+     *            -1 for the interpreter, or 0 to 9 to compile.
+     * @param observerQuantum
+     *            how many instructions to run between calls to the instruction observer. Smaller
+     *            values notice limits and interrupts sooner, and count instructions more
+     *            precisely, at some cost in speed.
+     * @throws IllegalArgumentException
+     *             if <i>optimizationLevel</i> is out of range, or <i>observerQuantum</i> is less
+     *             than 1.
+     */
+    public JSLintContextFactory(int optimizationLevel, int observerQuantum) {
+        if (!Context.isValidOptimizationLevel(optimizationLevel)) {
+            throw new IllegalArgumentException("invalid optimization level: " + optimizationLevel);
+        }
+        if (observerQuantum < 1) {
+            throw new IllegalArgumentException("observer quantum must be at least 1: "
+                    + observerQuantum);
+        }
+        this.optimizationLevel = optimizationLevel;
+        this.observerQuantum = observerQuantum;
+    }
+
+    /** How many instructions are run between calls to the instruction observer. */
+    public int getObserverQuantum() {
+        return observerQuantum;
+    }
+
+    /** The optimization level of every context made by this factory. */
+    public int getOptimizationLevel() {
+        return optimizationLevel;
+    }
+
+    /**
+     * Set the optimization level on each new context, and run the observer every quantum. This
+     * also means that compiled scripts include the instruction counting which the observer
+     * relies on. If there's a profiler, attach it too.
+     */
+    @Override
+    protected void onContextCreated(Context cx) {
+        cx.setOptimizationLevel(optimizationLevel);
+        cx.setInstructionObserverThreshold(observerQuantum);
+        if (profiler != null) {
+            profiler.attach(cx);
+        }
+        super.onContextCreated(cx);
+    }
+
+    /**
+     * Attach <i>profiler</i> to each new context. It only sees anything when the optimization
+     * level is -1.
+     */
+    void setProfiler(JSLintProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Count the instructions run by the lint in progress, and abandon it if it has gone past its
+     * {@link LintLimits}.
+     *
+     * @throws CancellationException
+     *             if the lint is interruptible, and the current thread has been interrupted.
+     */
+    @Override
+    protected void observeInstructionCount(Context cx, int instructionCount) {
+        LintWatchdog watchdog = (LintWatchdog) cx.getThreadLocal(LintWatchdog.KEY);
+        if (watchdog != null) {
+            watchdog.observe(instructionCount);
+        }
+    }
+}
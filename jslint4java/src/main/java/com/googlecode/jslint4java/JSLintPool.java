@@ -0,0 +1,448 @@
+package com.googlecode.jslint4java;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size collection of independent {@link JSLint} instances. Each {@link JSLint} has its own
+ * JavaScript scope, so the instances in a pool can run in parallel, unlike a single shared
+ * {@link JSLint}, which only lints one file at a time.
+ *
+ * <p>
+ * You can either use {@link #lint(String, String)}, which picks an idle instance for you, or
+ * manage instances yourself with {@link #borrow()} and {@link #release(JSLint)}:
+ *
+ * <pre>
+ * JSLint lint = pool.borrow();
+ * try {
+ *     result = lint.lint(name, source);
+ * } finally {
+ *     pool.release(lint);
+ * }
+ * </pre>
+ *
+ * <p>
+ * Or, to avoid blocking the calling thread, use {@link #lintAsync(String, String)}, which lints on
+ * an {@link Executor} and returns a {@link Future}. Cancelling the future with
+ * {@link Future#cancel(boolean) cancel(true)} abandons the lint part way through.
+ *
+ * @see JSLintBuilder#poolFromDefault(int) Construction of JSLintPool
+ */
+public class JSLintPool {
+
+    private final List<JSLint> engines;
+
+    private final BlockingQueue<JSLint> idle;
+
+    /** The instances handed out by {@link #borrow()}, and not yet released. */
+    private final ConcurrentMap<JSLint, Boolean> borrowed =
+            new ConcurrentHashMap<JSLint, Boolean>();
+
+    /** Where {@link #lintAsync(String, String)} runs. Created on demand if not set. */
+    private Executor executor;
+
+    private volatile int evidenceWidth = Issue.WHOLE_LINE;
+
+    private volatile LintMetrics metrics;
+
+    private volatile LintOptions options = LintOptions.EMPTY;
+
+    private volatile ResultDetail resultDetail = ResultDetail.FULL_REPORT;
+
+    /**
+     * Create a new {@link JSLintPool}. You are expected to use {@link JSLintBuilder} rather than
+     * calling this constructor.
+     */
+    JSLintPool(List<JSLint> engines) {
+        if (engines.isEmpty()) {
+            throw new IllegalArgumentException("a pool needs at least one JSLint");
+        }
+        this.engines = new ArrayList<JSLint>(engines);
+        idle = new ArrayBlockingQueue<JSLint>(engines.size(), false, engines);
+    }
+
+    /**
+     * Add an option to every {@link JSLint} handed out by this pool. This will be passed in with a
+     * value of "true".
+     *
+     * @param o
+     *            Any {@link Option}.
+     */
+    public synchronized void addOption(Option o) {
+        options = new LintOptions.Builder(options).addOption(o).build();
+    }
+
+    /**
+     * Add an option to every {@link JSLint} handed out by this pool. The option will be parsed as
+     * appropriate using an {@link OptionParser}.
+     *
+     * @param o
+     *            Any {@link Option}.
+     * @param arg
+     *            The value to associate with <i>o</i>.
+     */
+    public synchronized void addOption(Option o, String arg) {
+        options = new LintOptions.Builder(options).addOption(o, arg).build();
+    }
+
+    /**
+     * Bring an idle {@link JSLint} into line with the options, result detail, evidence width and
+     * metrics set on this pool.
+     */
+    private void applyOptions(JSLint lint) {
+        lint.setMetrics(metrics);
+        lint.setResultDetail(resultDetail);
+        lint.setEvidenceWidth(evidenceWidth);
+        lint.setOptions(options);
+    }
+
+    /**
+     * Take an idle {@link JSLint} out of the pool, waiting until one is available. The caller has
+     * exclusive use of it until it is handed back with {@link #release(JSLint)}. It is configured
+     * with the options set on this pool.
+     */
+    public JSLint borrow() throws InterruptedException {
+        JSLint lint = idle.take();
+        borrowed.put(lint, Boolean.TRUE);
+        applyOptions(lint);
+        return lint;
+    }
+
+    /**
+     * Take an idle {@link JSLint} out of the pool, waiting up to <i>timeout</i> for one to become
+     * available.
+     *
+     * @return an idle {@link JSLint}, or null if none became available in time.
+     */
+    public JSLint borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        JSLint lint = idle.poll(timeout, unit);
+        if (lint != null) {
+            borrowed.put(lint, Boolean.TRUE);
+            applyOptions(lint);
+        }
+        return lint;
+    }
+
+    /**
+     * Like {@link #borrow()}, but keep waiting if interrupted. The interrupt is preserved for the
+     * caller to deal with afterwards.
+     */
+    private JSLint borrowUninterruptibly() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return borrow();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Return the executor for {@link #lintAsync(String, String)}, making one if need be. The
+     * default has a thread per instance, which go away when idle.
+     */
+    private synchronized Executor executor() {
+        if (executor == null) {
+            ThreadPoolExecutor tpe = new ThreadPoolExecutor(size(), size(), 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("jslint-pool-"));
+            tpe.allowCoreThreadTimeOut(true);
+            executor = tpe;
+        }
+        return executor;
+    }
+
+    /**
+     * Where timings of each lint are sent, or null if nowhere.
+     */
+    public LintMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * How many characters of evidence each {@link Issue} found by this pool keeps.
+     */
+    public int getEvidenceWidth() {
+        return evidenceWidth;
+    }
+
+    /**
+     * Return the options set with {@link #addOption(Option)}, {@link #addOption(Option, String)}
+     * or {@link #setOptions(LintOptions)}.
+     */
+    public LintOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * How much detail every {@link JSLint} handed out by this pool gathers into its results.
+     */
+    public ResultDetail getResultDetail() {
+        return resultDetail;
+    }
+
+    /**
+     * Return the version of jslint in use.
+     */
+    public String getEdition() {
+        return engines.get(0).getEdition();
+    }
+
+    /**
+     * Return a checksum of the jslint.js in use.
+     *
+     * @see JSLint#getScriptDigest()
+     */
+    public String getScriptDigest() {
+        return engines.get(0).getScriptDigest();
+    }
+
+    /**
+     * Check for problems in a {@link Reader} which contains JavaScript source, using the next idle
+     * {@link JSLint}.
+     *
+     * @param systemId
+     *            a filename
+     * @param reader
+     *            a {@link Reader} over JavaScript source code.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, Reader reader) throws IOException {
+        return lint(systemId, Util.readerToString(reader));
+    }
+
+    /**
+     * Check for problems in a {@link Reader} which contains JavaScript source, using the next idle
+     * {@link JSLint} and <i>options</i> instead of the options set on this pool.
+     *
+     * @param systemId
+     *            a filename
+     * @param reader
+     *            a {@link Reader} over JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, Reader reader, LintOptions options)
+            throws IOException {
+        return lint(systemId, Util.readerToString(reader), options);
+    }
+
+    /**
+     * Check for problems in JavaScript source, using the next idle {@link JSLint}.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, String javaScript) {
+        return lint(systemId, javaScript, options);
+    }
+
+    /**
+     * Check for problems in JavaScript source, using the next idle {@link JSLint} and
+     * <i>options</i> instead of the options set on this pool. Different threads may lint with
+     * different options at the same time.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     *
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(String systemId, String javaScript, LintOptions options) {
+        return lint(systemId, javaScript, options, LintLimits.NONE);
+    }
+
+    /**
+     * Check for problems in JavaScript source, using <i>options</i>, and giving up if
+     * <i>limits</i> are exceeded. This waits for an idle {@link JSLint} if all are busy; time
+     * spent waiting counts towards a {@link LintLimits.Builder#deadline(long) deadline}, but not
+     * a timeout.
+     *
+     * @return a {@link JSLintResult}, which is {@link JSLintResult#isAborted() aborted} if the
+     *         lint was abandoned.
+     * @see JSLint#lint(String, String, LintOptions, LintLimits)
+     */
+    public JSLintResult lint(String systemId, String javaScript, LintOptions options,
+            LintLimits limits) {
+        LintMetrics m = metrics;
+        long before = m == null ? 0 : System.nanoTime();
+        JSLint lint = borrowUninterruptibly();
+        if (m != null) {
+            m.phaseCompleted(systemId, LintPhase.WAIT, System.nanoTime() - before);
+        }
+        try {
+            return lint.lint(systemId, javaScript, options, limits);
+        } finally {
+            release(lint);
+        }
+    }
+
+    /**
+     * Check for problems in JavaScript source without waiting for the result. The lint runs on
+     * this pool's executor, using the next idle {@link JSLint}.
+     *
+     * <p>
+     * Cancelling the returned future with {@code cancel(true)} interrupts the lint, which stops
+     * shortly afterwards.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     *
+     * @return a {@link Future} of the {@link JSLintResult}.
+     * @see #setExecutor(Executor)
+     */
+    public Future<JSLintResult> lintAsync(String systemId, String javaScript) {
+        return lintAsync(systemId, javaScript, options);
+    }
+
+    /**
+     * Check for problems in JavaScript source without waiting for the result, using
+     * <i>options</i> instead of the options set on this pool.
+     *
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     * @param options
+     *            the options to lint with.
+     *
+     * @return a {@link Future} of the {@link JSLintResult}.
+     * @see #lintAsync(String, String)
+     */
+    public Future<JSLintResult> lintAsync(final String systemId, final String javaScript,
+            final LintOptions options) {
+        FutureTask<JSLintResult> task = new FutureTask<JSLintResult>(
+                new Callable<JSLintResult>() {
+                    public JSLintResult call() {
+                        // So that cancel(true) stops the lint.
+                        return lint(systemId, javaScript, options,
+                                LintLimits.NONE.interruptible());
+                    }
+                });
+        executor().execute(task);
+        return task;
+    }
+
+    /**
+     * Hand back a {@link JSLint} obtained from {@link #borrow()}.
+     *
+     * @throws IllegalArgumentException
+     *             if <i>lint</i> does not belong to this pool.
+     * @throws IllegalStateException
+     *             if <i>lint</i> isn't borrowed, e.g. because it has already been released.
+     */
+    public void release(JSLint lint) {
+        if (!engines.contains(lint)) {
+            throw new IllegalArgumentException("not a member of this pool: " + lint);
+        }
+        // Only one of several racing releases can remove it, so it's never idle twice over.
+        if (borrowed.remove(lint) == null) {
+            throw new IllegalStateException("already released: " + lint);
+        }
+        idle.add(lint);
+    }
+
+    /**
+     * Clear out all options that have been set with {@link #addOption(Option)}.
+     */
+    public void resetOptions() {
+        options = LintOptions.EMPTY;
+    }
+
+    /**
+     * Choose how much evidence each {@link JSLint} handed out by this pool keeps in its issues.
+     *
+     * @see JSLint#setEvidenceWidth(int)
+     */
+    public void setEvidenceWidth(int width) {
+        if (width < Issue.WHOLE_LINE) {
+            throw new IllegalArgumentException("invalid evidence width: " + width);
+        }
+        this.evidenceWidth = width;
+    }
+
+    /**
+     * Run {@link #lintAsync(String, String)} on <i>executor</i>. There's no point in it having
+     * more threads than this pool has instances. If you don't set one, the pool makes its own.
+     * The pool never shuts down an executor that you supply.
+     */
+    public synchronized void setExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor may not be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Send timings of every lint by this pool to <i>metrics</i>, or nowhere if it's null. This
+     * includes the time spent waiting for an idle {@link JSLint} in
+     * {@link #lint(String, String, LintOptions, LintLimits)}.
+     *
+     * @see JSLint#setMetrics(LintMetrics)
+     */
+    public void setMetrics(LintMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Replace the options given to every {@link JSLint} handed out by this pool.
+     */
+    public void setOptions(LintOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options may not be null");
+        }
+        this.options = options;
+    }
+
+    /**
+     * Choose how much detail every {@link JSLint} handed out by this pool gathers into its
+     * results.
+     *
+     * @see JSLint#setResultDetail(ResultDetail)
+     */
+    public void setResultDetail(ResultDetail resultDetail) {
+        if (resultDetail == null) {
+            throw new IllegalArgumentException("resultDetail may not be null");
+        }
+        this.resultDetail = resultDetail;
+    }
+
+    /**
+     * How many {@link JSLint} instances does this pool hold? This is the maximum number of lints
+     * that can run at once.
+     */
+    public int size() {
+        return engines.size();
+    }
+}
@@ -0,0 +1,492 @@
+package com.googlecode.jslint4java;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.debug.DebugFrame;
+import org.mozilla.javascript.debug.DebuggableScript;
+import org.mozilla.javascript.debug.Debugger;
+
+/**
+ * Finds out where jslint.js spends its time, function by function and line by line, through
+ * Rhino's debugger hooks. Attach one with {@link JSLintBuilder#profiler(JSLintProfiler)}.
+ *
+ * <pre>
+ * JSLintProfiler profiler = new JSLintProfiler();
+ * JSLint lint = new JSLintBuilder().profiler(profiler).fromDefault();
+ * // Forget about loading jslint.js.
+ * profiler.reset();
+ * lint.lint("slow.js", javaScript);
+ * System.out.print(profiler.getSummary(20));
+ * profiler.writeCollapsedStacks(new FileWriter("jslint.folded"));
+ * </pre>
+ *
+ * <p>
+ * Rhino only calls a debugger from its interpreter, so profiled code always runs at optimization
+ * level -1, and every call and line is timed. Expect lints to take several times as long as
+ * usual: the figures are for comparing with each other, not with unprofiled lints.
+ *
+ * <p>
+ * Each function is named after the function it was declared as, or "(anonymous)", followed by
+ * where it starts, e.g. {@code expression (jslint.js:2345)}. Self time is the time spent in a
+ * function itself; total time also includes the functions it calls, counting recursive calls
+ * only once.
+ *
+ * <p>
+ * One profiler may be shared by every instance in a {@link JSLintPool}. Each thread keeps its own
+ * figures, which are only added together when read, so read them once linting has finished.
+ */
+public class JSLintProfiler implements Debugger {
+
+    /** The time spent in one JavaScript function. */
+    public static final class FunctionProfile {
+        private long calls;
+        private final int line;
+        private final String name;
+        private long selfNanos;
+        private final String sourceName;
+        private long totalNanos;
+
+        private FunctionProfile(String name, String sourceName, int line) {
+            this.name = name;
+            this.sourceName = sourceName;
+            this.line = line;
+        }
+
+        /** How many times the function was called. */
+        public long getCalls() {
+            return calls;
+        }
+
+        /** The line the function starts on. */
+        public int getLine() {
+            return line;
+        }
+
+        /** The function's name, with where it starts. */
+        public String getName() {
+            return name;
+        }
+
+        /** The time spent in the function itself, in nanoseconds. */
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        /** The time spent in the function and everything it called, in nanoseconds. */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+    }
+
+    /** The time spent on one line of JavaScript. */
+    public static final class LineProfile {
+        private long hits;
+        private final int line;
+        private long selfNanos;
+        private final String sourceName;
+
+        private LineProfile(String sourceName, int line) {
+            this.sourceName = sourceName;
+            this.line = line;
+        }
+
+        /** How many times the line was started. */
+        public long getHits() {
+            return hits;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        /** The time spent on the line, not including any functions it called, in nanoseconds. */
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        public String getSourceName() {
+            return sourceName;
+        }
+    }
+
+    /** What one thread has seen of one function. */
+    private static final class FunctionStats {
+        private int active;
+        private long calls;
+        private final int firstLine;
+        private final long[] lineHits;
+        private final long[] lineNanos;
+        private final String name;
+        private long selfNanos;
+        private final String sourceName;
+        private long totalNanos;
+
+        FunctionStats(DebuggableScript script) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int line : script.getLineNumbers()) {
+                min = Math.min(min, line);
+                max = Math.max(max, line);
+            }
+            int lines = max < min ? 0 : max - min + 1;
+            firstLine = lines == 0 ? 0 : min;
+            lineHits = new long[lines];
+            lineNanos = new long[lines];
+            sourceName = script.getSourceName();
+            name = functionName(script) + " (" + baseName(sourceName) + ":" + firstLine + ")";
+        }
+
+        /** Where <i>line</i> lives in our arrays, or -1 if it's not one of ours. */
+        int index(int line) {
+            int i = line - firstLine;
+            return i >= 0 && i < lineHits.length ? i : -1;
+        }
+    }
+
+    /** A place in the call tree: a function, called by way of all its parents. */
+    private static final class Node {
+        private Map<FunctionStats, Node> children;
+        private final FunctionStats function;
+        private long selfNanos;
+
+        Node(FunctionStats function) {
+            this.function = function;
+        }
+
+        Node child(FunctionStats fn) {
+            if (children == null) {
+                children = new IdentityHashMap<FunctionStats, Node>();
+            }
+            Node child = children.get(fn);
+            if (child == null) {
+                child = new Node(fn);
+                children.put(fn, child);
+            }
+            return child;
+        }
+    }
+
+    /** A call in progress. */
+    private static final class ProfileFrame implements DebugFrame {
+        private long enterTime;
+        private final FunctionStats function;
+        private int lineIndex = -1;
+        private Node node;
+        private ProfileFrame parent;
+        private final ThreadProfile profile;
+
+        ProfileFrame(ThreadProfile profile, FunctionStats function) {
+            this.profile = profile;
+            this.function = function;
+        }
+
+        public void onDebuggerStatement(Context cx) {
+            // Nothing to time.
+        }
+
+        public void onEnter(Context cx, Scriptable activation, Scriptable thisObj, Object[] args) {
+            profile.enter(this);
+        }
+
+        public void onExceptionThrown(Context cx, Throwable ex) {
+            // onExit() follows.
+        }
+
+        public void onExit(Context cx, boolean byThrow, Object resultOrException) {
+            profile.exit(this);
+        }
+
+        public void onLineChange(Context cx, int lineNumber) {
+            profile.lineChange(this, lineNumber);
+        }
+    }
+
+    /**
+     * Everything one thread has seen. Only that thread writes to it, but it's locked so that it
+     * can be read from elsewhere.
+     */
+    private static final class ThreadProfile {
+        private ProfileFrame current;
+        private Map<DebuggableScript, FunctionStats> functions =
+                new IdentityHashMap<DebuggableScript, FunctionStats>();
+        private long last;
+        private Node root = new Node(null);
+
+        /** Charge the time since the last event to whatever was running. */
+        private void charge(long now) {
+            ProfileFrame f = current;
+            if (f != null) {
+                long nanos = now - last;
+                f.function.selfNanos += nanos;
+                f.node.selfNanos += nanos;
+                if (f.lineIndex >= 0) {
+                    f.function.lineNanos[f.lineIndex] += nanos;
+                }
+            }
+            last = now;
+        }
+
+        synchronized void enter(ProfileFrame f) {
+            long now = System.nanoTime();
+            charge(now);
+            FunctionStats fn = f.function;
+            fn.calls++;
+            if (fn.active++ == 0) {
+                f.enterTime = now;
+            }
+            f.parent = current;
+            f.node = (current == null ? root : current.node).child(fn);
+            current = f;
+        }
+
+        synchronized void exit(ProfileFrame f) {
+            long now = System.nanoTime();
+            charge(now);
+            FunctionStats fn = f.function;
+            if (--fn.active == 0) {
+                fn.totalNanos += now - f.enterTime;
+            }
+            current = f.parent;
+        }
+
+        synchronized FunctionStats function(DebuggableScript script) {
+            FunctionStats fn = functions.get(script);
+            if (fn == null) {
+                fn = new FunctionStats(script);
+                functions.put(script, fn);
+            }
+            return fn;
+        }
+
+        synchronized void lineChange(ProfileFrame f, int line) {
+            charge(System.nanoTime());
+            f.lineIndex = f.function.index(line);
+            if (f.lineIndex >= 0) {
+                f.function.lineHits[f.lineIndex]++;
+            }
+        }
+
+        /** Forget everything. Calls in progress carry on, but aren't counted. */
+        synchronized void reset() {
+            functions = new IdentityHashMap<DebuggableScript, FunctionStats>();
+            root = new Node(null);
+            current = null;
+        }
+    }
+
+    /** Most time first. */
+    private static final Comparator<FunctionProfile> FUNCTIONS_BY_SELF =
+            new Comparator<FunctionProfile>() {
+                public int compare(FunctionProfile a, FunctionProfile b) {
+                    return compareNanos(b.selfNanos, a.selfNanos);
+                }
+            };
+
+    /** Most time first. */
+    private static final Comparator<LineProfile> LINES_BY_SELF = new Comparator<LineProfile>() {
+        public int compare(LineProfile a, LineProfile b) {
+            return compareNanos(b.selfNanos, a.selfNanos);
+        }
+    };
+
+    /** The last part of a path, to keep names short. */
+    private static String baseName(String sourceName) {
+        if (sourceName == null) {
+            return "";
+        }
+        int slash = Math.max(sourceName.lastIndexOf('/'), sourceName.lastIndexOf('\\'));
+        return sourceName.substring(slash + 1);
+    }
+
+    private static int compareNanos(long a, long b) {
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    private static String functionName(DebuggableScript script) {
+        if (script.isTopLevel()) {
+            return "(top level)";
+        }
+        String name = script.getFunctionName();
+        return name == null || name.length() == 0 ? "(anonymous)" : name;
+    }
+
+    private final List<ThreadProfile> profiles = new ArrayList<ThreadProfile>();
+
+    private final ThreadLocal<ThreadProfile> threadProfile = new ThreadLocal<ThreadProfile>() {
+        @Override
+        protected ThreadProfile initialValue() {
+            ThreadProfile profile = new ThreadProfile();
+            synchronized (profiles) {
+                profiles.add(profile);
+            }
+            return profile;
+        }
+    };
+
+    /**
+     * Add up the stacks under <i>node</i>, whose own stack is <i>prefix</i>, into
+     * <i>stacks</i>.
+     */
+    private void collapse(Node node, String prefix, Map<String, Long> stacks) {
+        if (node.function != null && node.selfNanos > 0) {
+            Long nanos = stacks.get(prefix);
+            stacks.put(prefix, (nanos == null ? 0 : nanos) + node.selfNanos);
+        }
+        if (node.children == null) {
+            return;
+        }
+        for (Node child : node.children.values()) {
+            String name = child.function.name.replace(';', ':');
+            collapse(child, prefix.length() == 0 ? name : prefix + ";" + name, stacks);
+        }
+    }
+
+    /** Start profiling on <i>cx</i>. Called for each context made by the factory. */
+    void attach(Context cx) {
+        cx.setDebugger(this, threadProfile.get());
+    }
+
+    /** A copy of each thread's figures, to read from. */
+    private List<ThreadProfile> snapshot() {
+        synchronized (profiles) {
+            return new ArrayList<ThreadProfile>(profiles);
+        }
+    }
+
+    /**
+     * The time spent in each function, most self time first. Functions with the same name from
+     * different threads or instances are added together.
+     */
+    public List<FunctionProfile> getFunctions() {
+        Map<String, FunctionProfile> byName = new HashMap<String, FunctionProfile>();
+        for (ThreadProfile profile : snapshot()) {
+            synchronized (profile) {
+                for (FunctionStats fn : profile.functions.values()) {
+                    FunctionProfile fp = byName.get(fn.name);
+                    if (fp == null) {
+                        fp = new FunctionProfile(fn.name, fn.sourceName, fn.firstLine);
+                        byName.put(fn.name, fp);
+                    }
+                    fp.calls += fn.calls;
+                    fp.selfNanos += fn.selfNanos;
+                    fp.totalNanos += fn.totalNanos;
+                }
+            }
+        }
+        List<FunctionProfile> functions = new ArrayList<FunctionProfile>(byName.values());
+        Collections.sort(functions, FUNCTIONS_BY_SELF);
+        return functions;
+    }
+
+    /** The time spent on each line which was run at least once, most time first. */
+    public List<LineProfile> getLines() {
+        Map<String, LineProfile> byLine = new HashMap<String, LineProfile>();
+        for (ThreadProfile profile : snapshot()) {
+            synchronized (profile) {
+                for (FunctionStats fn : profile.functions.values()) {
+                    for (int i = 0; i < fn.lineHits.length; i++) {
+                        if (fn.lineHits[i] == 0) {
+                            continue;
+                        }
+                        int line = fn.firstLine + i;
+                        String key = fn.sourceName + ":" + line;
+                        LineProfile lp = byLine.get(key);
+                        if (lp == null) {
+                            lp = new LineProfile(fn.sourceName, line);
+                            byLine.put(key, lp);
+                        }
+                        lp.hits += fn.lineHits[i];
+                        lp.selfNanos += fn.lineNanos[i];
+                    }
+                }
+            }
+        }
+        List<LineProfile> lines = new ArrayList<LineProfile>(byLine.values());
+        Collections.sort(lines, LINES_BY_SELF);
+        return lines;
+    }
+
+    /**
+     * The time spent in each distinct stack of calls, outermost first and separated by
+     * semicolons. Only the time spent in the innermost function is counted against each stack.
+     */
+    public Map<String, Long> getCollapsedStacks() {
+        Map<String, Long> stacks = new TreeMap<String, Long>();
+        for (ThreadProfile profile : snapshot()) {
+            synchronized (profile) {
+                collapse(profile.root, "", stacks);
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * A table of the <i>limit</i> functions and lines with the most self time.
+     */
+    public String getSummary(int limit) {
+        Formatter f = new Formatter();
+        f.format("%10s %12s %12s  %s%n", "calls", "self(ms)", "total(ms)", "function");
+        List<FunctionProfile> functions = getFunctions();
+        for (FunctionProfile fp : functions.subList(0, Math.min(limit, functions.size()))) {
+            f.format("%10d %12.1f %12.1f  %s%n", fp.calls, fp.selfNanos / 1e6,
+                    fp.totalNanos / 1e6, fp.name);
+        }
+        f.format("%n%10s %12s  %s%n", "hits", "self(ms)", "line");
+        List<LineProfile> lines = getLines();
+        for (LineProfile lp : lines.subList(0, Math.min(limit, lines.size()))) {
+            f.format("%10d %12.1f  %s:%d%n", lp.hits, lp.selfNanos / 1e6,
+                    baseName(lp.sourceName), lp.line);
+        }
+        return f.toString();
+    }
+
+    public DebugFrame getFrame(Context cx, DebuggableScript fnOrScript) {
+        ThreadProfile profile = (ThreadProfile) cx.getDebuggerContextData();
+        return new ProfileFrame(profile, profile.function(fnOrScript));
+    }
+
+    public void handleCompilationDone(Context cx, DebuggableScript fnOrScript, String source) {
+        // We only care about running scripts.
+    }
+
+    /**
+     * Forget everything seen so far, e.g. once jslint.js has been loaded. Calls in progress
+     * aren't counted.
+     */
+    public void reset() {
+        for (ThreadProfile profile : snapshot()) {
+            profile.reset();
+        }
+    }
+
+    /**
+     * Write out {@link #getCollapsedStacks()}, one stack per line followed by a space and the
+     * nanoseconds spent in it. This is the "folded" format read by {@code flamegraph.pl} and
+     * similar tools.
+     */
+    public void writeCollapsedStacks(Writer out) throws IOException {
+        for (Map.Entry<String, Long> entry : getCollapsedStacks().entrySet()) {
+            out.write(entry.getKey());
+            out.write(' ');
+            out.write(entry.getValue().toString());
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
@@ -19,9 +19,11 @@ public class JSLintResult {
      */
     public static class ResultBuilder {
 
+        private AbortReason abortReason;
         private long duration;
         private final List<JSFunction> functions = new ArrayList<JSFunction>();
         private final List<String> globals = new ArrayList<String>();
+        private long instructionCount;
         private final List<Issue> issues = new ArrayList<Issue>();
         private boolean json;
         private final String name;
@@ -33,6 +35,14 @@ public class JSLintResult {
             this.name = name;
         }
 
+        /**
+         * Mark the result as being from a lint that was abandoned, for <i>reason</i>.
+         */
+        public ResultBuilder aborted(AbortReason reason) {
+            abortReason = reason;
+            return this;
+        }
+
         public ResultBuilder addFunction(JSFunction f) {
             functions.add(f);
             return this;
@@ -67,6 +77,11 @@ public class JSLintResult {
             return this;
         }
 
+        public ResultBuilder instructionCount(long count) {
+            instructionCount = count;
+            return this;
+        }
+
         public ResultBuilder json(boolean json) {
             this.json = json;
             return this;
@@ -79,9 +94,11 @@ public class JSLintResult {
 
     }
 
+    private final AbortReason abortReason;
     private final long duration;
     private final List<JSFunction> functions = new ArrayList<JSFunction>();
     private final List<String> globals = new ArrayList<String>();
+    private final long instructionCount;
     private final List<Issue> issues = new ArrayList<Issue>();
     private final boolean json;
     private final String name;
@@ -91,7 +108,9 @@ public class JSLintResult {
 
     private JSLintResult(ResultBuilder b) {
         name = b.name;
+        abortReason = b.abortReason;
         duration = b.duration;
+        instructionCount = b.instructionCount;
         issues.addAll(b.issues);
         functions.addAll(b.functions);
         globals.addAll(b.globals);
@@ -101,6 +120,35 @@ public class JSLintResult {
         properties.addAll(b.properties);
     }
 
+    /**
+     * Return a copy of this result, for the same source under a different name. Any issues are
+     * renamed to match.
+     */
+    JSLintResult copyAs(String newName) {
+        ResultBuilder b = new ResultBuilder(newName);
+        b.aborted(abortReason).duration(duration).instructionCount(instructionCount).json(json)
+                .report(report);
+        for (Issue issue : issues) {
+            b.addIssue(new Issue.IssueBuilder(newName, issue.getLine(), issue.getCharacter(),
+                    issue.getReason()).evidence(issue.getEvidence())
+                    .evidenceOffset(issue.getEvidenceOffset()).raw(issue.getRaw()).build());
+        }
+        b.functions.addAll(functions);
+        b.globals.addAll(globals);
+        b.urls.addAll(urls);
+        b.properties.addAll(properties);
+        return b.build();
+    }
+
+    /**
+     * Why the lint was abandoned, or null if it wasn't.
+     *
+     * @see #isAborted()
+     */
+    public AbortReason getAbortReason() {
+        return abortReason;
+    }
+
     /** How long did JSLint take to run? (milliseconds)*/
     public long getDuration() {
         return duration;
@@ -116,6 +164,23 @@ public class JSLintResult {
         return globals;
     }
 
+    /**
+     * How many JavaScript instructions did JSLint run? Unlike {@link #getDuration()}, this is the
+     * same every time the same source is linted with the same options, jslint.js and
+     * optimization level, however busy the machine is. That makes it a reproducible way to spot
+     * sources which are expensive to lint. Building this result is counted too, as it may run
+     * JSLint's report.
+     *
+     * <p>
+     * Instructions are counted by Rhino's instruction observer, so the count is rounded down to
+     * a multiple of (roughly) the {@link JSLintContextFactory#getObserverQuantum() quantum}. A
+     * quick lint may report none at all. Counts from the interpreter and from compiled code
+     * aren't comparable.
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
     /**
      * Return a list of all issues that JSLint found with this source code.
      */
@@ -142,6 +207,14 @@ public class JSLintResult {
         return urls;
     }
 
+    /**
+     * Was the lint abandoned before it finished, because of its {@link LintLimits}? If so, there
+     * are no issues or other details: it's not known whether the source is OK.
+     */
+    public boolean isAborted() {
+        return abortReason != null;
+    }
+
     /** Was this JSON? */
     public boolean isJson() {
         return json;
@@ -0,0 +1,133 @@
+package com.googlecode.jslint4java;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeJavaPackage;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * A compiled jslint.js, which can be turned into any number of independent {@link JSLint}
+ * instances without parsing or compiling it again.
+ *
+ * <p>
+ * All instances share a single set of standard objects ({@code Object}, {@code String}, etc.).
+ * Each instance gets its own top level scope, whose prototype is the shared one, for jslint.js to
+ * define {@code JSLINT} in. The shared scope is sealed once the first instance has been created,
+ * so that no instance can change it underneath the others. This allows jslint.js to add things
+ * like {@code String.prototype.entityify()} the first time it's run, but not after that.
+ *
+ * @see <a href="https://developer.mozilla.org/en-US/docs/Rhino/Scopes_and_Contexts">Rhino scopes
+ *      and contexts</a>
+ */
+final class JSLintScript {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Script script;
+
+    private final String name;
+
+    private final String digest;
+
+    /** Standard objects shared by all instances. Null until the first instance is made. */
+    private ScriptableObject sharedScope;
+
+    /**
+     * @param digest
+     *            a checksum of the source <i>script</i> was compiled from, as made by
+     *            {@link #digest(String)}.
+     */
+    JSLintScript(Script script, String name, String digest) {
+        this.script = script;
+        this.name = name;
+        this.digest = digest;
+    }
+
+    /** A hex encoded SHA-1 checksum of <i>source</i>. */
+    static String digest(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return ClassCache.hex(digest.digest(source.getBytes(UTF8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has to provide SHA-1.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Seal the standard objects in <i>scope</i>, along with their prototypes, so that they can be
+     * shared between threads. This is what {@link Context#initStandardObjects(ScriptableObject,
+     * boolean)} does, except that we do it after jslint.js has had a chance to run.
+     */
+    private static void sealStandardObjects(ScriptableObject scope) {
+        // Sealing initializes any lazily loaded constructors, so do it first.
+        scope.sealObject();
+        for (Object id : scope.getAllIds()) {
+            if (!(id instanceof String)) {
+                continue;
+            }
+            Object value = scope.get((String) id, scope);
+            // Rhino doesn't seal java packages either: they get filled in on demand.
+            if (value instanceof ScriptableObject && !(value instanceof NativeJavaPackage)) {
+                ScriptableObject obj = (ScriptableObject) value;
+                Object proto = obj.get("prototype", obj);
+                if (proto instanceof ScriptableObject) {
+                    ((ScriptableObject) proto).sealObject();
+                }
+                obj.sealObject();
+            }
+        }
+    }
+
+    /** A checksum of the source of jslint.js. */
+    String getDigest() {
+        return digest;
+    }
+
+    /** The name jslint.js was loaded from. */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Run the compiled script in a fresh scope, whose prototype is <i>parent</i>.
+     *
+     * @return the JSLINT function that the script defined.
+     */
+    private Function instantiate(Context cx, Scriptable parent) {
+        Scriptable scope = cx.newObject(parent);
+        scope.setPrototype(parent);
+        scope.setParentScope(null);
+        script.exec(cx, scope);
+        return (Function) scope.get("JSLINT", scope);
+    }
+
+    /**
+     * Create a new {@link JSLint}, with its own copy of the JSLINT state.
+     */
+    @NeedsContext
+    JSLint newInstance(ContextFactory contextFactory) {
+        try {
+            Context cx = contextFactory.enterContext();
+            synchronized (this) {
+                if (sharedScope == null) {
+                    ScriptableObject scope = cx.initStandardObjects();
+                    Function lintFunc = instantiate(cx, scope);
+                    sealStandardObjects(scope);
+                    sharedScope = scope;
+                    return new JSLint(contextFactory, lintFunc, digest);
+                }
+            }
+            return new JSLint(contextFactory, instantiate(cx, sharedScope), digest);
+        } finally {
+            Context.exit();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.googlecode.jslint4java;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * {@link Tracing} as Java Flight Recorder events, so that a recording shows time spent in
+ * jslint4java alongside GC, thread contention, and everything else. The events are in the
+ * "jslint4java" category, and are enabled by default (with no threshold) when recording.
+ *
+ * <p>
+ * Only load this class after checking that {@code jdk.jfr} is available.
+ */
+class JfrTracing extends Tracing {
+
+    @Name("com.googlecode.jslint4java.Compile")
+    @Label("Compile jslint.js")
+    @Category("jslint4java")
+    @Description("Parsing and compiling jslint.js, or loading it from the class cache")
+    static class CompileEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Source Length")
+        @Description("Characters of jslint.js")
+        int sourceLength;
+
+        @Label("Optimization Level")
+        int optimizationLevel;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    @Name("com.googlecode.jslint4java.Lint")
+    @Label("Lint")
+    @Category("jslint4java")
+    @Description("Running JSLINT over one source")
+    static class LintEvent extends Event {
+        @Label("System ID")
+        String systemId;
+
+        @Label("Source Length")
+        @Description("Characters of JavaScript linted")
+        int sourceLength;
+
+        @Label("Options Hash")
+        int optionsHash;
+
+        @Label("Instructions")
+        @Description("Rhino instructions run, to the nearest observer quantum")
+        long instructionCount;
+
+        @Label("Issues")
+        int issueCount;
+
+        @Label("Outcome")
+        @Description("ok, or why the lint stopped: aborted, timeout, cancelled or failed")
+        String outcome;
+    }
+
+    @Name("com.googlecode.jslint4java.BuildResults")
+    @Label("Build Results")
+    @Category("jslint4java")
+    @Description("Copying issues, data and the report out of JSLINT into a result")
+    static class BuildResultsEvent extends Event {
+        @Label("System ID")
+        String systemId;
+
+        @Label("Result Detail")
+        String resultDetail;
+
+        @Label("Issues")
+        int issueCount;
+    }
+
+    @Name("com.googlecode.jslint4java.Report")
+    @Label("Report")
+    @Category("jslint4java")
+    @Description("Generating the HTML report")
+    static class ReportEvent extends Event {
+        @Label("System ID")
+        String systemId;
+
+        @Label("Errors Only")
+        boolean errorsOnly;
+
+        @Label("Report Length")
+        @Description("Characters of HTML")
+        int reportLength;
+    }
+
+    /** Start <i>event</i>, or return null if it isn't being recorded. */
+    private static Object begin(Event event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    Object buildStarted() {
+        return begin(new BuildResultsEvent());
+    }
+
+    @Override
+    void buildFinished(Object handle, String systemId, ResultDetail detail, int issueCount) {
+        BuildResultsEvent event = (BuildResultsEvent) handle;
+        event.systemId = systemId;
+        event.resultDetail = detail.name();
+        event.issueCount = issueCount;
+        event.commit();
+    }
+
+    @Override
+    Object compileStarted() {
+        return begin(new CompileEvent());
+    }
+
+    @Override
+    void compileFinished(Object handle, String name, int sourceLength, int optimizationLevel,
+            String outcome) {
+        CompileEvent event = (CompileEvent) handle;
+        event.name = name;
+        event.sourceLength = sourceLength;
+        event.optimizationLevel = optimizationLevel;
+        event.outcome = outcome;
+        event.commit();
+    }
+
+    @Override
+    Object lintStarted() {
+        return begin(new LintEvent());
+    }
+
+    @Override
+    void lintFinished(Object handle, String systemId, int sourceLength, int optionsHash,
+            long instructionCount, int issueCount, String outcome) {
+        LintEvent event = (LintEvent) handle;
+        event.systemId = systemId;
+        event.sourceLength = sourceLength;
+        event.optionsHash = optionsHash;
+        event.instructionCount = instructionCount;
+        event.issueCount = issueCount;
+        event.outcome = outcome;
+        event.commit();
+    }
+
+    @Override
+    Object reportStarted() {
+        return begin(new ReportEvent());
+    }
+
+    @Override
+    void reportFinished(Object handle, String systemId, boolean errorsOnly, int reportLength) {
+        ReportEvent event = (ReportEvent) handle;
+        event.systemId = systemId;
+        event.errorsOnly = errorsOnly;
+        event.reportLength = reportLength;
+        event.commit();
+    }
+}
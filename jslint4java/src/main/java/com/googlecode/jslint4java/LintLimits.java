@@ -0,0 +1,225 @@
+package com.googlecode.jslint4java;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on a single lint, beyond which it's abandoned. Unlike
+ * {@link JSLintBuilder#timeout(long, TimeUnit)}, which applies to every lint and throws an
+ * exception, these are given to each call, and produce a result which
+ * {@link JSLintResult#isAborted() is aborted}.
+ *
+ * <pre>
+ * CancellationToken token = new CancellationToken();
+ * LintLimits limits = new LintLimits.Builder()
+ *         .timeout(2, TimeUnit.SECONDS)
+ *         .cancellationToken(token)
+ *         .build();
+ * JSLintResult result = lint.lint(name, source, options, limits);
+ * if (result.isAborted()) { ... }
+ * </pre>
+ *
+ * <p>
+ * Limits are checked each time the instruction observer fires (every
+ * {@link JSLintContextFactory#getObserverQuantum() quantum} instructions), so a lint may overrun
+ * slightly. They cover the whole lint, including building the {@link JSLintResult}, which runs
+ * JSLint's {@code data()} and report functions for the richer {@link ResultDetail}s.
+ *
+ * <p>
+ * Being immutable, a single instance can be shared between threads and lints. Sharing one with a
+ * {@link Builder#deadline(long) deadline} is a simple way to give a whole batch a time budget.
+ *
+ * @see JSLint#lint(String, String, LintOptions, LintLimits)
+ */
+public final class LintLimits {
+
+    /**
+     * Allow construction of an immutable {@link LintLimits}.
+     */
+    public static class Builder {
+        private CancellationToken cancellationToken;
+        private long deadlineNanos;
+        private boolean hasDeadline = false;
+        private long instructionBudget = -1;
+        private boolean interruptible = false;
+        private long timeoutNanos = -1;
+
+        /** Start with no limits. */
+        public Builder() {
+        }
+
+        /** Start with the same limits as <i>base</i>. */
+        public Builder(LintLimits base) {
+            cancellationToken = base.cancellationToken;
+            deadlineNanos = base.deadlineNanos;
+            hasDeadline = base.hasDeadline;
+            instructionBudget = base.instructionBudget;
+            interruptible = base.interruptible;
+            timeoutNanos = base.timeoutNanos;
+        }
+
+        public LintLimits build() {
+            return new LintLimits(this);
+        }
+
+        /** Abandon the lint if <i>token</i> is cancelled. */
+        public Builder cancellationToken(CancellationToken token) {
+            cancellationToken = token;
+            return this;
+        }
+
+        /**
+         * Abandon the lint if it's still running at <i>deadlineNanos</i>, as measured by
+         * {@link System#nanoTime()}.
+         */
+        public Builder deadline(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+            hasDeadline = true;
+            return this;
+        }
+
+        /**
+         * Abandon the lint once JSLint has run more than <i>instructions</i> Rhino instructions.
+         * Unlike a timeout, this doesn't depend on how busy the machine is: the same source,
+         * options and jslint.js always stop at the same point. See
+         * {@link JSLintResult#getInstructionCount()} for how instructions are counted.
+         */
+        public Builder instructionBudget(long instructions) {
+            if (instructions < 0) {
+                throw new IllegalArgumentException("instruction budget may not be negative: "
+                        + instructions);
+            }
+            instructionBudget = instructions;
+            return this;
+        }
+
+        /**
+         * Abandon the lint with a {@link java.util.concurrent.CancellationException} if its
+         * thread is interrupted, e.g. by {@link java.util.concurrent.Future#cancel(boolean)}.
+         * The interrupt is left set. Without this, an interrupt is left for the caller to deal
+         * with once the lint has finished. {@link JSLintPool#lintAsync(String, String)} and
+         * {@link JSLintBatch} always set this.
+         */
+        public Builder interruptible() {
+            interruptible = true;
+            return this;
+        }
+
+        /**
+         * Abandon the lint if it's still running <i>timeout</i> after it started. If there's a
+         * {@link #deadline(long)} as well, whichever comes first applies.
+         */
+        public Builder timeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout may not be negative: " + timeout);
+            }
+            timeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+    }
+
+    /** No limits at all. */
+    public static final LintLimits NONE = new Builder().build();
+
+    private final CancellationToken cancellationToken;
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final long instructionBudget;
+    private final boolean interruptible;
+    private final long timeoutNanos;
+
+    private LintLimits(Builder b) {
+        cancellationToken = b.cancellationToken;
+        deadlineNanos = b.deadlineNanos;
+        hasDeadline = b.hasDeadline;
+        instructionBudget = b.instructionBudget;
+        interruptible = b.interruptible;
+        timeoutNanos = b.timeoutNanos;
+    }
+
+    /**
+     * When a lint which starts at <i>startNanos</i> must finish by, or null if never.
+     */
+    Long deadlineFor(long startNanos) {
+        if (timeoutNanos < 0) {
+            return hasDeadline ? Long.valueOf(deadlineNanos) : null;
+        }
+        long end = startNanos + timeoutNanos;
+        // Compare the difference, in case nanoTime() wraps.
+        if (hasDeadline && deadlineNanos - end < 0) {
+            end = deadlineNanos;
+        }
+        return end;
+    }
+
+    /** The token which abandons the lint when cancelled, or null if there isn't one. */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * The deadline, as measured by {@link System#nanoTime()}. Only meaningful if
+     * {@link #hasDeadline()}.
+     */
+    public long getDeadline() {
+        return deadlineNanos;
+    }
+
+    /**
+     * The maximum number of instructions each lint may run, or -1 if unlimited.
+     */
+    public long getInstructionBudget() {
+        return instructionBudget;
+    }
+
+    /**
+     * The maximum time each lint may take, or -1 if unlimited.
+     */
+    public long getTimeout(TimeUnit unit) {
+        return timeoutNanos < 0 ? -1 : unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Is there a {@link Builder#deadline(long) deadline}? */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /** Is the lint abandoned if its thread is interrupted? */
+    public boolean isInterruptible() {
+        return interruptible;
+    }
+
+    /** Are there any limits at all? */
+    boolean isUnlimited() {
+        return cancellationToken == null && !hasDeadline && instructionBudget < 0
+                && !interruptible && timeoutNanos < 0;
+    }
+
+    /** These limits, but {@link Builder#interruptible() interruptible}. */
+    LintLimits interruptible() {
+        return interruptible ? this : new Builder(this).interruptible().build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        if (cancellationToken != null) {
+            sb.append("cancellable, ");
+        }
+        if (hasDeadline) {
+            sb.append("deadline=").append(deadlineNanos).append(", ");
+        }
+        if (instructionBudget >= 0) {
+            sb.append("instructionBudget=").append(instructionBudget).append(", ");
+        }
+        if (interruptible) {
+            sb.append("interruptible, ");
+        }
+        if (timeoutNanos >= 0) {
+            sb.append("timeout=").append(timeoutNanos).append("ns, ");
+        }
+        if (sb.length() > 1) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.googlecode.jslint4java;
+
+/**
+ * Told where the time goes in each lint. Attach one with {@link JSLint#setMetrics(LintMetrics)}
+ * or {@link JSLintPool#setMetrics(LintMetrics)}. {@link LintStatistics} is a ready made
+ * implementation, which keeps histograms and can be watched over JMX.
+ *
+ * <p>
+ * Methods are called on the thread doing the lint, while it holds the {@link JSLint}, so they
+ * should be quick, and must be thread safe if the same instance is given to more than one
+ * {@link JSLint}. Timings are measured with {@link System#nanoTime()}.
+ */
+public interface LintMetrics {
+
+    /**
+     * The lint of <i>systemId</i> has finished (or been {@link JSLintResult#isAborted()
+     * aborted}). This is called after all of its phases.
+     *
+     * @param sourceLength
+     *            how many characters of JavaScript were linted.
+     * @param result
+     *            the result of the lint, for its issue count, etc.
+     * @param nanos
+     *            how long the whole lint took, not including any {@link LintPhase#WAIT}.
+     */
+    void lintCompleted(String systemId, int sourceLength, JSLintResult result, long nanos);
+
+    /**
+     * One <i>phase</i> of the lint of <i>systemId</i> took <i>nanos</i>. A phase which isn't
+     * needed (e.g. the report, when it hasn't been asked for) isn't reported.
+     */
+    void phaseCompleted(String systemId, LintPhase phase, long nanos);
+}
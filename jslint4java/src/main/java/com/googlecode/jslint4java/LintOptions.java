@@ -0,0 +1,182 @@
+package com.googlecode.jslint4java;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * An immutable set of {@link Option}s and their values. Being immutable, a single instance can be
+ * shared between threads, and passed to as many lints as you like. Each {@link JSLint} converts a
+ * given {@link LintOptions} to JavaScript just once, and reuses that for later lints.
+ *
+ * <pre>
+ * LintOptions options = new LintOptions.Builder()
+ *         .addOption(Option.WHITE)
+ *         .addOption(Option.PREDEF, "alert, confirm")
+ *         .build();
+ * JSLintResult result = lint.lint(name, source, options);
+ * </pre>
+ *
+ * @see JSLint#lint(String, String, LintOptions)
+ */
+public final class LintOptions {
+
+    /**
+     * Allow construction of an immutable {@link LintOptions}.
+     */
+    public static class Builder {
+        private final Map<Option, Object> options = new EnumMap<Option, Object>(Option.class);
+
+        /** Start with no options set. */
+        public Builder() {
+        }
+
+        /** Start with the same options as <i>base</i>. */
+        public Builder(LintOptions base) {
+            options.putAll(base.options);
+        }
+
+        /**
+         * Add an option, with a value of "true".
+         *
+         * @param o
+         *            Any {@link Option}.
+         */
+        public Builder addOption(Option o) {
+            options.put(o, Boolean.TRUE);
+            return this;
+        }
+
+        /**
+         * Add an option. The value will be parsed as appropriate using an {@link OptionParser}.
+         *
+         * @param o
+         *            Any {@link Option}.
+         * @param arg
+         *            The value to associate with <i>o</i>.
+         * @throws IllegalArgumentException
+         *             if <i>arg</i> can't be parsed.
+         */
+        public Builder addOption(Option o, String arg) {
+            options.put(o, new OptionParser().parse(o.getType(), arg));
+            return this;
+        }
+
+        public LintOptions build() {
+            return new LintOptions(this);
+        }
+
+        /** Remove <i>o</i>, if it was set. */
+        public Builder removeOption(Option o) {
+            options.remove(o);
+            return this;
+        }
+    }
+
+    /** No options at all. */
+    public static final LintOptions EMPTY = new Builder().build();
+
+    /** Compare two option values, which might be arrays. */
+    private static boolean valueEquals(Object a, Object b) {
+        if (a instanceof Object[] && b instanceof Object[]) {
+            return Arrays.equals((Object[]) a, (Object[]) b);
+        }
+        return a.equals(b);
+    }
+
+    private static int valueHashCode(Object o) {
+        return o instanceof Object[] ? Arrays.hashCode((Object[]) o) : o.hashCode();
+    }
+
+    private final Map<Option, Object> options;
+
+    /** Precomputed, as we're used as a map key on every lint. */
+    private final int hashCode;
+
+    private LintOptions(Builder b) {
+        Map<Option, Object> copy = new EnumMap<Option, Object>(Option.class);
+        int hash = 0;
+        for (Entry<Option, Object> entry : b.options.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Object[]) {
+                value = ((Object[]) value).clone();
+            }
+            copy.put(entry.getKey(), value);
+            // Enum hash codes vary between runs; names don't.
+            hash += entry.getKey().name().hashCode() ^ valueHashCode(value);
+        }
+        options = Collections.unmodifiableMap(copy);
+        hashCode = hash;
+    }
+
+    /** Is <i>o</i> set? */
+    public boolean contains(Option o) {
+        return options.containsKey(o);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LintOptions)) {
+            return false;
+        }
+        LintOptions other = (LintOptions) obj;
+        if (hashCode != other.hashCode || !options.keySet().equals(other.options.keySet())) {
+            return false;
+        }
+        for (Entry<Option, Object> entry : options.entrySet()) {
+            if (!valueEquals(entry.getValue(), other.options.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the value of <i>o</i>, or null if it isn't set. This will be a {@link Boolean}, an
+     * {@link Integer}, or an array of {@link String}s, depending on the type of <i>o</i>.
+     */
+    public Object get(Option o) {
+        Object value = options.get(o);
+        return value instanceof Object[] ? ((Object[]) value).clone() : value;
+    }
+
+    /** Which options are set. */
+    public Set<Option> getOptions() {
+        return options.keySet();
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /** Is no option set? */
+    public boolean isEmpty() {
+        return options.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Entry<Option, Object> entry : options.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey().getLowerName()).append('=');
+            Object value = entry.getValue();
+            sb.append(value instanceof Object[] ? Arrays.toString((Object[]) value) : value);
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Iterate over the options and their values, without copying. */
+    Set<Entry<Option, Object>> entrySet() {
+        return options.entrySet();
+    }
+}
@@ -0,0 +1,31 @@
+package com.googlecode.jslint4java;
+
+/**
+ * The parts of a lint which {@link LintMetrics} are told the timing of.
+ */
+public enum LintPhase {
+
+    /** Waiting for an idle {@link JSLint} in a {@link JSLintPool}. */
+    WAIT,
+
+    /** Turning {@link LintOptions} into a JavaScript object. Usually cached, so very quick. */
+    OPTIONS,
+
+    /** Running {@code JSLINT} itself. */
+    LINT,
+
+    /** Copying the issues out of {@code JSLINT.errors}. */
+    ISSUES,
+
+    /** Copying out the output of {@code JSLINT.data()} and the properties used. */
+    DATA,
+
+    /** Generating the HTML report. */
+    REPORT,
+
+    /**
+     * Formatting a result for output, as timed by a
+     * {@link com.googlecode.jslint4java.formatter.MeteredFormatter}.
+     */
+    FORMAT;
+}
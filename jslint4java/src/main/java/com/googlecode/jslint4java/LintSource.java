@@ -0,0 +1,124 @@
+package com.googlecode.jslint4java;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+/**
+ * Some JavaScript to be linted, along with its name. The source isn't read until it's needed, so
+ * you can create as many of these as you like up front.
+ *
+ * <p>
+ * Use {@link #fromFile(File, Charset)} or {@link #fromString(String, String)}, or subclass this and
+ * implement {@link #open()} to read from anywhere else.
+ *
+ * @see JSLintBatch
+ */
+public abstract class LintSource {
+
+    private static final class FileSource extends LintSource {
+        private final File file;
+        private final SourceLoader loader;
+
+        FileSource(File file, SourceLoader loader) {
+            super(file.toString());
+            this.file = file;
+            this.loader = loader;
+        }
+
+        @Override
+        protected Reader open() throws IOException {
+            return new StringReader(read());
+        }
+
+        @Override
+        public String read() throws IOException {
+            return loader.load(file);
+        }
+    }
+
+    private static final class StringSource extends LintSource {
+        private final String javaScript;
+
+        StringSource(String name, String javaScript) {
+            super(name);
+            this.javaScript = javaScript;
+        }
+
+        @Override
+        protected Reader open() {
+            return new StringReader(javaScript);
+        }
+
+        @Override
+        public String read() {
+            return javaScript;
+        }
+    }
+
+    /**
+     * A file, which is read using <i>encoding</i>. Any byte order mark is skipped.
+     * @see SourceLoader
+     */
+    public static LintSource fromFile(File file, Charset encoding) {
+        return new FileSource(file, new SourceLoader(encoding));
+    }
+
+    /**
+     * A file, which is read by <i>loader</i>. Share a loader between many files for speed.
+     */
+    public static LintSource fromFile(File file, SourceLoader loader) {
+        return new FileSource(file, loader);
+    }
+
+    /**
+     * JavaScript that you already have in memory.
+     *
+     * @param name
+     *            a filename, for reporting.
+     * @param javaScript
+     *            the source code.
+     */
+    public static LintSource fromString(String name, String javaScript) {
+        return new StringSource(name, javaScript);
+    }
+
+    private final String name;
+
+    /**
+     * @param name
+     *            a filename, for reporting.
+     */
+    protected LintSource(String name) {
+        this.name = name;
+    }
+
+    /** The name to report this source under. */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Open a new {@link Reader} over the source. It will be closed by {@link #read()}.
+     */
+    protected abstract Reader open() throws IOException;
+
+    /**
+     * Return the whole of the source.
+     */
+    public String read() throws IOException {
+        Reader reader = open();
+        try {
+            return Util.readerToString(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
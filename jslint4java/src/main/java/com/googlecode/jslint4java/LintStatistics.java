@@ -0,0 +1,185 @@
+package com.googlecode.jslint4java;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Formatter;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * {@link LintMetrics} which keep a histogram of the time taken by each {@link LintPhase}, and
+ * by each lint as a whole, along with totals of the source linted and the issues found. They can
+ * be read directly, or over JMX once {@link #register(String) registered}.
+ *
+ * <pre>
+ * LintStatistics stats = new LintStatistics();
+ * stats.register("lint-service");
+ * pool.setMetrics(stats);
+ * </pre>
+ *
+ * <p>
+ * A single instance may be shared by any number of {@link JSLint}s and {@link JSLintPool}s.
+ */
+public class LintStatistics implements LintMetrics, LintStatisticsMBean {
+
+    /** The name of the pseudo phase which covers the whole of each lint. */
+    public static final String TOTAL = "TOTAL";
+
+    /** The JMX domain we register under. */
+    public static final String DOMAIN = "com.googlecode.jslint4java";
+
+    private final AtomicLong aborted = new AtomicLong();
+
+    private final AtomicLong issues = new AtomicLong();
+
+    private final Map<LintPhase, Histogram> phases;
+
+    private final AtomicLong sourceLength = new AtomicLong();
+
+    private final Histogram total = new Histogram();
+
+    private ObjectName objectName;
+
+    public LintStatistics() {
+        Map<LintPhase, Histogram> map = new EnumMap<LintPhase, Histogram>(LintPhase.class);
+        for (LintPhase phase : LintPhase.values()) {
+            map.put(phase, new Histogram());
+        }
+        phases = Collections.unmodifiableMap(map);
+    }
+
+    public long getAbortedCount() {
+        return aborted.get();
+    }
+
+    public long getCount(String phase) {
+        return histogram(phase).getCount();
+    }
+
+    public long getIssueCount() {
+        return issues.get();
+    }
+
+    public long getLintCount() {
+        return total.getCount();
+    }
+
+    public long getMaxNanos(String phase) {
+        return histogram(phase).getMax();
+    }
+
+    public double getMeanNanos(String phase) {
+        return histogram(phase).getMean();
+    }
+
+    public long getPercentileNanos(String phase, double percentile) {
+        return histogram(phase).getPercentile(percentile);
+    }
+
+    public long getSourceLength() {
+        return sourceLength.get();
+    }
+
+    public String getSummary() {
+        Formatter f = new Formatter();
+        f.format("%d lints, %d aborted, %d chars, %d issues%n", getLintCount(),
+                getAbortedCount(), getSourceLength(), getIssueCount());
+        f.format("%-8s %10s %12s %12s %12s %12s %12s%n", "phase", "count", "total(ms)",
+                "mean(us)", "p50(us)", "p99(us)", "max(us)");
+        for (LintPhase phase : LintPhase.values()) {
+            summarize(f, phase.name(), phases.get(phase));
+        }
+        summarize(f, TOTAL, total);
+        return f.toString();
+    }
+
+    public long getTotalNanos(String phase) {
+        return histogram(phase).getTotal();
+    }
+
+    /**
+     * The histogram for the phase called <i>name</i>.
+     *
+     * @throws IllegalArgumentException
+     *             if there's no such phase.
+     */
+    private Histogram histogram(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("phase may not be null");
+        }
+        if (TOTAL.equals(name)) {
+            return total;
+        }
+        // Throws IllegalArgumentException for unknown names.
+        return phases.get(LintPhase.valueOf(name));
+    }
+
+    public void lintCompleted(String systemId, int length, JSLintResult result, long nanos) {
+        total.record(nanos);
+        sourceLength.addAndGet(length);
+        issues.addAndGet(result.getIssues().size());
+        if (result.isAborted()) {
+            aborted.incrementAndGet();
+        }
+    }
+
+    public void phaseCompleted(String systemId, LintPhase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    /**
+     * Make these statistics visible over JMX, in the platform MBean server, as
+     * {@code com.googlecode.jslint4java:type=LintStatistics,name=}<i>name</i>.
+     *
+     * @return the name registered under.
+     * @throws JMException
+     *             if the name is taken, or isn't valid.
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName on = new ObjectName(DOMAIN + ":type=LintStatistics,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+        objectName = on;
+        return on;
+    }
+
+    public void reset() {
+        for (Histogram h : phases.values()) {
+            h.reset();
+        }
+        total.reset();
+        aborted.set(0);
+        issues.set(0);
+        sourceLength.set(0);
+    }
+
+    private void summarize(Formatter f, String name, Histogram h) {
+        f.format("%-8s %10d %12.1f %12.1f %12.1f %12.1f %12.1f%n", name, h.getCount(),
+                h.getTotal() / 1e6, h.getMean() / 1e3, h.getPercentile(50) / 1e3,
+                h.getPercentile(99) / 1e3, h.getMax() / 1e3);
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+
+    /**
+     * Remove these statistics from JMX, if {@link #register(String) registered}.
+     *
+     * @throws JMException
+     *             if they've already been removed by other means.
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.googlecode.jslint4java;
+
+/**
+ * The management interface of {@link LintStatistics}. Phases are named as in {@link LintPhase},
+ * plus {@code TOTAL}, for the whole of each lint.
+ */
+public interface LintStatisticsMBean {
+
+    /** How many lints were abandoned because of their {@link LintLimits}. */
+    long getAbortedCount();
+
+    /** How many times <i>phase</i> has been timed. */
+    long getCount(String phase);
+
+    /** How many issues have been found, in all. */
+    long getIssueCount();
+
+    /** How many lints have finished. */
+    long getLintCount();
+
+    /** The longest <i>phase</i> has taken, in nanoseconds. */
+    long getMaxNanos(String phase);
+
+    /** The mean time <i>phase</i> has taken, in nanoseconds. */
+    double getMeanNanos(String phase);
+
+    /**
+     * How long <i>percentile</i>% of <i>phase</i>s have taken no longer than, in nanoseconds.
+     * This is accurate to within 12.5%.
+     */
+    long getPercentileNanos(String phase, double percentile);
+
+    /** How many characters of JavaScript have been linted, in all. */
+    long getSourceLength();
+
+    /** A table of all the above. */
+    String getSummary();
+
+    /** The total time spent in <i>phase</i>, in nanoseconds. */
+    long getTotalNanos(String phase);
+
+    /** Start counting again from zero. */
+    void reset();
+}
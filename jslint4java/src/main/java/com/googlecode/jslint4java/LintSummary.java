@@ -0,0 +1,241 @@
+package com.googlecode.jslint4java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * {@link LintMetrics} which sum up a whole run: how long it took, how much of that was spent
+ * linting, and which files were the slowest. This is what the command line tool, the Maven
+ * plugin and the Ant task print when asked for a summary.
+ *
+ * <pre>
+ * LintSummary summary = new LintSummary(10);
+ * JSLintPool pool = new JSLintBuilder().poolFromDefault(4);
+ * summary.startupCompleted();
+ * pool.setMetrics(summary);
+ * // … lint everything …
+ * summary.finish();
+ * System.err.print(summary.format());
+ * </pre>
+ *
+ * <p>
+ * The run starts when the summary is created. Only files which are actually linted are
+ * counted, so results reused from a {@link ResultCache} don't appear.
+ */
+public class LintSummary implements LintMetrics {
+
+    /** How long it took to lint a single file. */
+    public static final class FileTiming {
+        private final long instructionCount;
+        private final long nanos;
+        private final int sourceLength;
+        private final String systemId;
+
+        FileTiming(String systemId, int sourceLength, long instructionCount, long nanos) {
+            this.systemId = systemId;
+            this.sourceLength = sourceLength;
+            this.instructionCount = instructionCount;
+            this.nanos = nanos;
+        }
+
+        /** How many JavaScript instructions the lint took. */
+        public long getInstructionCount() {
+            return instructionCount;
+        }
+
+        /** How long the lint took, in nanoseconds. */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /** How many characters were linted. */
+        public int getSourceLength() {
+            return sourceLength;
+        }
+
+        public String getSystemId() {
+            return systemId;
+        }
+    }
+
+    /** How many of the slowest files to keep, unless told otherwise. */
+    public static final int DEFAULT_SLOWEST = 10;
+
+    /** Fastest first, so that the head of the queue is the one to drop. */
+    private static final Comparator<FileTiming> FASTEST_FIRST = new Comparator<FileTiming>() {
+        public int compare(FileTiming a, FileTiming b) {
+            return a.nanos < b.nanos ? -1 : (a.nanos == b.nanos ? 0 : 1);
+        }
+    };
+
+    private static String escape(String str) {
+        return str.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("'", "&apos;");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private long finishTime = -1;
+
+    private long lintCount;
+
+    private long lintNanos;
+
+    private final int slowest;
+
+    private final PriorityQueue<FileTiming> slowestFiles;
+
+    private long sourceLength;
+
+    private final long startTime = System.nanoTime();
+
+    private long startupNanos;
+
+    /** Create a summary which keeps the {@value #DEFAULT_SLOWEST} slowest files. */
+    public LintSummary() {
+        this(DEFAULT_SLOWEST);
+    }
+
+    /**
+     * Create a summary which keeps the <i>slowest</i> slowest files.
+     *
+     * @param slowest
+     *            how many files to list. Zero leaves them out altogether.
+     */
+    public LintSummary(int slowest) {
+        if (slowest < 0) {
+            throw new IllegalArgumentException("slowest may not be negative: " + slowest);
+        }
+        this.slowest = slowest;
+        slowestFiles = new PriorityQueue<FileTiming>(slowest + 1, FASTEST_FIRST);
+    }
+
+    /** Stop the clock on the run. Until this is called, the wall time keeps growing. */
+    public synchronized void finish() {
+        if (finishTime < 0) {
+            finishTime = System.nanoTime();
+        }
+    }
+
+    /** A table of the timings, with one line per slow file. */
+    public synchronized String format() {
+        Formatter f = new Formatter();
+        long wall = getWallNanos();
+        f.format("Linted %d files (%d chars) in %.1f ms, including %.1f ms of engine startup%n",
+                lintCount, sourceLength, millis(wall), millis(startupNanos));
+        f.format("Summed lint time %.1f ms, effective parallelism %.2f%n", millis(lintNanos),
+                getParallelism());
+        List<FileTiming> files = getSlowest();
+        if (!files.isEmpty()) {
+            f.format("Slowest files:%n");
+            f.format("%10s %10s %14s  %s%n", "time(ms)", "chars", "instructions", "file");
+            for (FileTiming file : files) {
+                f.format("%10.1f %10d %14d  %s%n", millis(file.nanos), file.sourceLength,
+                        file.instructionCount, file.systemId);
+            }
+        }
+        return f.toString();
+    }
+
+    /** How many files have been linted. */
+    public synchronized long getLintCount() {
+        return lintCount;
+    }
+
+    /** The sum of the time taken by each lint, in nanoseconds. */
+    public synchronized long getLintNanos() {
+        return lintNanos;
+    }
+
+    /**
+     * How many files were being linted at once, on average: the summed lint time divided by the
+     * wall time after engine startup. One for a single thread which did nothing but lint.
+     */
+    public synchronized double getParallelism() {
+        long linting = getWallNanos() - startupNanos;
+        return linting > 0 ? (double) lintNanos / linting : 0.0;
+    }
+
+    /** The slowest files so far, slowest first. */
+    public synchronized List<FileTiming> getSlowest() {
+        List<FileTiming> files = new ArrayList<FileTiming>(slowestFiles);
+        Collections.sort(files, Collections.reverseOrder(FASTEST_FIRST));
+        return files;
+    }
+
+    /** How many characters have been linted, across all files. */
+    public synchronized long getSourceLength() {
+        return sourceLength;
+    }
+
+    /** How long it took to get the engines ready, in nanoseconds. */
+    public synchronized long getStartupNanos() {
+        return startupNanos;
+    }
+
+    /** How long the run took from start to {@link #finish()}, in nanoseconds. */
+    public synchronized long getWallNanos() {
+        return (finishTime < 0 ? System.nanoTime() : finishTime) - startTime;
+    }
+
+    public synchronized void lintCompleted(String systemId, int length, JSLintResult result,
+            long nanos) {
+        lintCount++;
+        lintNanos += nanos;
+        sourceLength += length;
+        if (slowest == 0) {
+            return;
+        }
+        slowestFiles.add(new FileTiming(systemId, length, result.getInstructionCount(), nanos));
+        if (slowestFiles.size() > slowest) {
+            slowestFiles.poll();
+        }
+    }
+
+    public void phaseCompleted(String systemId, LintPhase phase, long nanos) {
+        // Only whole lints matter here.
+    }
+
+    /** The engines are ready: everything since the start of the run counts as startup. */
+    public synchronized void startupCompleted() {
+        startupNanos = System.nanoTime() - startTime;
+    }
+
+    /**
+     * The same as {@link #format()}, as XML. All times are in milliseconds.
+     *
+     * <pre>
+     * &lt;summary files='2' chars='1234' wall='310.5' startup='250.1' lint='52.3' parallelism='0.87'&gt;
+     *   &lt;file name='a.js' chars='1000' instructions='120000' time='40.2'/&gt;
+     *   &lt;file name='b.js' chars='234' instructions='30000' time='12.1'/&gt;
+     * &lt;/summary&gt;
+     * </pre>
+     */
+    public synchronized String toXml() {
+        // Always a decimal point, whatever the locale.
+        Formatter f = new Formatter(Locale.ENGLISH);
+        f.format("<?xml version='1.0' encoding='UTF-8'?>%n");
+        f.format("<summary files='%d' chars='%d' wall='%.1f' startup='%.1f' lint='%.1f'"
+                + " parallelism='%.2f'>%n", lintCount, sourceLength, millis(getWallNanos()),
+                millis(startupNanos), millis(lintNanos), getParallelism());
+        for (FileTiming file : getSlowest()) {
+            f.format("  <file name='%s' chars='%d' instructions='%d' time='%.1f'/>%n",
+                    escape(file.systemId), file.sourceLength, file.instructionCount,
+                    millis(file.nanos));
+        }
+        f.format("</summary>%n");
+        return f.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -0,0 +1,88 @@
+package com.googlecode.jslint4java;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Enforces a {@link LintLimits} on one lint, and counts the instructions it runs. It's attached to
+ * the Rhino context running the lint, and told by {@link JSLintContextFactory} every time the
+ * instruction observer fires.
+ */
+final class LintWatchdog {
+
+    /** Thrown out of the running JavaScript to abandon it. */
+    @SuppressWarnings("serial")
+    static final class AbortedException extends RuntimeException {
+        private final AbortReason reason;
+
+        AbortedException(AbortReason reason) {
+            super(reason.toString());
+            this.reason = reason;
+        }
+
+        AbortReason getReason() {
+            return reason;
+        }
+    }
+
+    /** The key this is stored under in the context. */
+    static final Object KEY = LintWatchdog.class;
+
+    private final CancellationToken cancellationToken;
+
+    private final Long deadlineNanos;
+
+    private final long instructionBudget;
+
+    private final boolean interruptible;
+
+    private long instructions = 0;
+
+    /**
+     * @param startNanos
+     *            when the lint started, for working out a timeout.
+     */
+    LintWatchdog(LintLimits limits, long startNanos) {
+        cancellationToken = limits.getCancellationToken();
+        deadlineNanos = limits.deadlineFor(startNanos);
+        instructionBudget = limits.getInstructionBudget();
+        interruptible = limits.isInterruptible();
+    }
+
+    /**
+     * @throws AbortedException
+     *             if the lint should be abandoned.
+     * @throws CancellationException
+     *             if the lint is interruptible, and our thread has been interrupted.
+     */
+    void check() {
+        if (interruptible && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("interrupted");
+        }
+        if (cancellationToken != null && cancellationToken.isCancelled()) {
+            throw new AbortedException(AbortReason.CANCELLED);
+        }
+        // Compare the difference, in case nanoTime() wraps.
+        if (deadlineNanos != null && System.nanoTime() - deadlineNanos.longValue() >= 0) {
+            throw new AbortedException(AbortReason.DEADLINE);
+        }
+        if (instructionBudget >= 0 && instructions > instructionBudget) {
+            throw new AbortedException(AbortReason.INSTRUCTION_BUDGET);
+        }
+    }
+
+    /** How many instructions have been observed so far. */
+    long getInstructionCount() {
+        return instructions;
+    }
+
+    /**
+     * Record that <i>count</i> more instructions have run, then {@link #check()}.
+     *
+     * @throws AbortedException
+     *             if the lint should be abandoned.
+     */
+    void observe(int count) {
+        instructions += count;
+        check();
+    }
+}
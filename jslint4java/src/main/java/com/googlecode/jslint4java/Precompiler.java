@@ -0,0 +1,60 @@
+package com.googlecode.jslint4java;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.mozilla.javascript.CompilerEnvirons;
+
+/**
+ * Compile the default jslint.js to a class during the build, so that
+ * {@link JSLintBuilder#fromDefault()} doesn't have to at runtime. This does the same job as Rhino's
+ * {@code jsc}, except that {@code jsc} in Rhino 1.7R4 can't be persuaded to generate the
+ * instruction counting code that timeouts depend on.
+ *
+ * <p>
+ * Usage: {@code Precompiler jslint.js class.name output-dir}
+ */
+final class Precompiler {
+
+    private Precompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: Precompiler jslint.js class.name output-dir");
+            System.exit(1);
+        }
+        File source = new File(args[0]);
+        String className = args[1];
+        File outputDir = new File(args[2]);
+
+        CompilerEnvirons env = new CompilerEnvirons();
+        env.setOptimizationLevel(ClassCache.OPTIMIZATION_LEVEL);
+        env.setGenerateObserverCount(true);
+        InputStreamReader reader = new InputStreamReader(new FileInputStream(source),
+                Charset.forName("UTF-8"));
+        String js;
+        try {
+            js = Util.readerToString(reader);
+        } finally {
+            reader.close();
+        }
+        byte[] bytes = ClassCache.compileToClass(env, js, source.getName(), className);
+
+        File out = new File(outputDir, className.replace('.', File.separatorChar) + ".class");
+        if (!out.getParentFile().isDirectory() && !out.getParentFile().mkdirs()) {
+            throw new IOException("can't create " + out.getParentFile());
+        }
+        OutputStream os = new FileOutputStream(out);
+        try {
+            os.write(bytes);
+        } finally {
+            os.close();
+        }
+    }
+}
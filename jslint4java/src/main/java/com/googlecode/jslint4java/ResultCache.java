@@ -0,0 +1,492 @@
+package com.googlecode.jslint4java;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A directory of lint results, kept between runs, so that linting an unchanged file costs a
+ * checksum rather than a run of jslint. Point several builds at the same directory, and each
+ * only lints what's changed since the last one.
+ *
+ * <pre>
+ * ResultCache cache = new ResultCache(new File("target/jslint4java/cache"));
+ * JSLintResult result = cache.lint(jsLint, "foo.js", javaScript);
+ * </pre>
+ *
+ * <p>
+ * Each result is stored in a file named after a checksum of the source text, the options, the
+ * result detail and jslint.js itself, so a change to any of them means linting again. The
+ * file holds a compact binary record with its own checksum. A damaged or unreadable file is
+ * treated the same as a missing one. Once the directory grows past a given size, the least
+ * recently used files are deleted.
+ *
+ * <p>
+ * A single {@link ResultCache} may be used from many threads at once, and several processes may
+ * share a directory.
+ */
+public class ResultCache {
+
+    /** A file in the cache, as it was when we listed the directory. */
+    private static final class Record implements Comparable<Record> {
+        final File file;
+        final long lastModified;
+        final long length;
+
+        Record(File file) {
+            this.file = file;
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+
+        public int compareTo(Record other) {
+            return lastModified < other.lastModified ? -1
+                    : lastModified == other.lastModified ? 0 : 1;
+        }
+    }
+
+    /** The default limit on the size of the directory: 64Mb. */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /** Marks the start of a record, and its format. Bump this if the format changes. */
+    private static final int MAGIC = 0x4a4c5204;
+
+    private static final String SUFFIX = ".jlr";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final FileFilter RECORDS = new FileFilter() {
+        public boolean accept(File file) {
+            return file.getName().endsWith(SUFFIX) && file.isFile();
+        }
+    };
+
+    /**
+     * Turn a record made by {@link #encode(JSLintResult)} back into a result called <i>name</i>.
+     *
+     * @throws IOException
+     *             if the record is damaged.
+     */
+    public static JSLintResult decode(String name, byte[] record) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(record);
+        if (record.length < 12 || buf.getInt() != MAGIC) {
+            throw new IOException("not a result record");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record, 4, record.length - 12);
+        if (buf.getLong(record.length - 8) != crc.getValue()) {
+            throw new IOException("checksum mismatch");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 4,
+                record.length - 12));
+        JSLintResult.ResultBuilder b = new JSLintResult.ResultBuilder(name);
+        b.duration(in.readLong()).instructionCount(in.readLong()).json(in.readBoolean())
+                .report(readString(in));
+        // Issues on the same line share its evidence, as they did before encoding.
+        Map<String, String> evidence = new HashMap<String, String>();
+        for (int i = in.readInt(); i > 0; i--) {
+            int line = in.readInt();
+            int character = in.readInt();
+            Issue.IssueBuilder ib = new Issue.IssueBuilder(name, line, character,
+                    readString(in));
+            String e = readString(in);
+            if (e != null) {
+                String shared = evidence.get(e);
+                if (shared == null) {
+                    evidence.put(e, e);
+                } else {
+                    e = shared;
+                }
+            }
+            int offset = in.readInt();
+            if (offset < 0) {
+                throw new IOException("bad evidence offset: " + offset);
+            }
+            b.addIssue(ib.evidence(e).evidenceOffset(offset).raw(readString(in)).build());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            String fname = readString(in);
+            JSFunction.Builder fb = new JSFunction.Builder(fname, in.readInt());
+            fb.last(in.readInt());
+            for (String s : readStrings(in)) {
+                fb.addClosure(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addException(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addGlobal(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addLabel(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addOuter(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addParam(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addUnused(s);
+            }
+            for (String s : readStrings(in)) {
+                fb.addVar(s);
+            }
+            b.addFunction(fb.build());
+        }
+        for (String s : readStrings(in)) {
+            b.addGlobal(s);
+        }
+        for (String s : readStrings(in)) {
+            b.addUrl(s);
+        }
+        for (String s : readStrings(in)) {
+            b.addProperty(s);
+        }
+        if (in.available() != 0) {
+            throw new IOException("trailing garbage");
+        }
+        return b.build();
+    }
+
+    /**
+     * Turn <i>result</i> into a compact binary record, as stored in the cache. The name isn't
+     * stored, as the same source may turn up under another name.
+     */
+    public static byte[] encode(JSLintResult result) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeLong(result.getDuration());
+            out.writeLong(result.getInstructionCount());
+            out.writeBoolean(result.isJson());
+            writeString(out, result.getReport());
+            out.writeInt(result.getIssues().size());
+            for (Issue issue : result.getIssues()) {
+                out.writeInt(issue.getLine());
+                out.writeInt(issue.getCharacter());
+                writeString(out, issue.getReason());
+                writeString(out, issue.getEvidence());
+                out.writeInt(issue.getEvidenceOffset());
+                writeString(out, issue.getRaw());
+            }
+            out.writeInt(result.getFunctions().size());
+            for (JSFunction f : result.getFunctions()) {
+                writeString(out, f.getName());
+                out.writeInt(f.getLine());
+                out.writeInt(f.getLast());
+                writeStrings(out, f.getClosure());
+                writeStrings(out, f.getException());
+                writeStrings(out, f.getGlobal());
+                writeStrings(out, f.getLabel());
+                writeStrings(out, f.getOuter());
+                writeStrings(out, f.getParams());
+                writeStrings(out, f.getUnused());
+                writeStrings(out, f.getVars());
+            }
+            writeStrings(out, result.getGlobals());
+            writeStrings(out, result.getUrls());
+            writeStrings(out, result.getProperties());
+            out.flush();
+            CRC32 crc = new CRC32();
+            byte[] record = bytes.toByteArray();
+            crc.update(record, 4, record.length - 4);
+            out.writeLong(crc.getValue());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // Can't happen: we're writing to memory.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            long length = file.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(file + ": too big");
+            }
+            byte[] bytes = new byte[(int) length];
+            new DataInputStream(in).readFully(bytes);
+            if (in.read() != -1) {
+                throw new IOException(file + ": changed while reading");
+            }
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+
+    /** A string written by {@link #writeString(DataOutputStream, String)}, possibly null. */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("bad string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("bad count: " + count);
+        }
+        List<String> strings = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    /**
+     * Write <i>s</i> as a length and UTF-8 bytes. Unlike {@link DataOutputStream#writeUTF(String)}
+     * this copes with nulls, and with more than 64k (which HTML reports can easily be).
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings)
+            throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    private final File directory;
+
+    private final long maxBytes;
+
+    /** How big we think the directory is, or -1 if we haven't looked yet. Guarded by this. */
+    private long size = -1;
+
+    private long hitCount = 0;
+
+    private long missCount = 0;
+
+    /**
+     * Create a {@link ResultCache} in <i>directory</i>, which is limited to
+     * {@link #DEFAULT_MAX_BYTES}. The directory is created when it's first needed.
+     */
+    public ResultCache(File directory) {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a {@link ResultCache} in <i>directory</i>. The directory is created when it's first
+     * needed.
+     *
+     * @param maxBytes
+     *            once the cache is bigger than this, the least recently used results are deleted.
+     */
+    public ResultCache(File directory, long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be at least 1: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Delete the least recently used results, until we're comfortably under the limit. The file
+     * we've just written is kept: file times are too coarse to be sure that it's the newest.
+     */
+    private synchronized void evict(File keep) {
+        List<Record> records = records();
+        Collections.sort(records);
+        // Aim for three quarters of the limit, so we don't do this after every store.
+        long target = maxBytes - maxBytes / 4;
+        for (Record record : records) {
+            if (size <= target) {
+                break;
+            }
+            if (!record.file.equals(keep) && record.file.delete()) {
+                size -= record.length;
+            }
+        }
+    }
+
+    /**
+     * Look up a result, previously stored under <i>key</i>.
+     *
+     * @param key
+     *            from {@link #key(JSLint, String)}.
+     * @param systemId
+     *            the name to give the result.
+     * @return the result, or null if there isn't one (or it can't be read).
+     */
+    public JSLintResult get(String key, String systemId) {
+        File file = fileFor(key);
+        if (file.isFile()) {
+            try {
+                JSLintResult result = decode(systemId, readFully(file));
+                // Keep it from being evicted for a while.
+                file.setLastModified(System.currentTimeMillis());
+                return result;
+            } catch (IOException e) {
+                // It's useless, so don't let it take up space.
+                file.delete();
+            } catch (RuntimeException e) {
+                file.delete();
+            }
+        }
+        return null;
+    }
+
+    /** The directory where results are kept. */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /** How many calls to {@link #lint(JSLint, String, String)} found a stored result. */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** The size the directory is kept under. */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** How many calls to {@link #lint(JSLint, String, String)} had to run jslint. */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /** List the files in the cache, and note how big they are in total. */
+    private synchronized List<Record> records() {
+        List<Record> records = new ArrayList<Record>();
+        File[] files = directory.listFiles(RECORDS);
+        size = 0;
+        if (files != null) {
+            for (File file : files) {
+                Record record = new Record(file);
+                records.add(record);
+                size += record.length;
+            }
+        }
+        return records;
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    /**
+     * Compute the key that a result of linting <i>javaScript</i> with <i>lint</i> (as it's
+     * currently set up) is stored under.
+     */
+    public String key(JSLint lint, String javaScript) {
+        return CachingJSLint.key(lint.getScriptDigest(), lint.getResultDetail(),
+                lint.getEvidenceWidth(), lint.getOptions(),
+                javaScript == null ? "" : javaScript);
+    }
+
+    /**
+     * Check for problems in JavaScript source, using <i>lint</i> and its current options, unless
+     * we've already seen the same source with the same settings.
+     *
+     * @param lint
+     *            the {@link JSLint} to use on a miss.
+     * @param systemId
+     *            a filename
+     * @param javaScript
+     *            a String of JavaScript source code.
+     * @return a {@link JSLintResult}.
+     */
+    public JSLintResult lint(JSLint lint, String systemId, String javaScript) {
+        String key = key(lint, javaScript);
+        JSLintResult result = get(key, systemId);
+        synchronized (this) {
+            if (result != null) {
+                hitCount++;
+                return result;
+            }
+            missCount++;
+        }
+        result = lint.lint(systemId, javaScript);
+        if (!result.isAborted()) {
+            put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Store <i>result</i> under <i>key</i>. We write to a temporary file first, so that a
+     * concurrent reader never sees half a record. Failing to write is not an error: it'll just be
+     * linted again next time.
+     */
+    public void put(String key, JSLintResult result) {
+        File file = fileFor(key);
+        byte[] record = encode(result);
+        File tmp = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+            tmp = File.createTempFile(key, ".tmp", directory);
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(record);
+            } finally {
+                out.close();
+            }
+            // On some platforms, you can't rename over an existing file.
+            file.delete();
+            if (tmp.renameTo(file)) {
+                tmp = null;
+                stored(file, record.length);
+            }
+        } catch (IOException e) {
+            // Ignore; see above.
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /** Note that we've written <i>length</i> bytes to <i>file</i>, and evict if need be. */
+    private synchronized void stored(File file, long length) {
+        if (size == -1) {
+            // Work out how big the directory is, including anything other runs left behind.
+            records();
+        } else {
+            size += length;
+        }
+        if (size > maxBytes) {
+            evict(file);
+        }
+    }
+}
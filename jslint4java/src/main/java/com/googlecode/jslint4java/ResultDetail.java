@@ -0,0 +1,26 @@
+package com.googlecode.jslint4java;
+
+/**
+ * How much of {@link JSLintResult} to fill in after each lint. Gathering everything is
+ * expensive—particularly the HTML report—so if you only look at the issues, ask for just those.
+ *
+ * @see JSLint#setResultDetail(ResultDetail)
+ */
+public enum ResultDetail {
+
+    /**
+     * Only {@link JSLintResult#getIssues()} is filled in (along with the name and duration, which
+     * are free).
+     */
+    ISSUES_ONLY,
+
+    /**
+     * As {@link #ISSUES_ONLY}, plus the output of {@code JSLINT.data()}:
+     * {@link JSLintResult#getFunctions()}, {@link JSLintResult#getGlobals()},
+     * {@link JSLintResult#getProperties()} and {@link JSLintResult#isJson()}.
+     */
+    DATA,
+
+    /** As {@link #DATA}, plus the HTML {@link JSLintResult#getReport()}. This is the default. */
+    FULL_REPORT;
+}
@@ -0,0 +1,119 @@
+package com.googlecode.jslint4java;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import com.googlecode.jslint4java.UnicodeBomInputStream.BOM;
+
+/**
+ * Read JavaScript source into a String, quickly. Files are read in bulk through a
+ * {@link FileChannel}, and decoded in one go, straight into the String.
+ *
+ * <p>
+ * A Unicode byte order mark at the start of the source is skipped. The source is always decoded
+ * with the encoding given to the constructor, whether or not there's a byte order mark, as
+ * {@link UnicodeBomInputStream} did. Malformed input is replaced rather than reported, as an
+ * {@link java.io.InputStreamReader} would.
+ *
+ * <p>
+ * A single {@link SourceLoader} may be used from many threads at once.
+ */
+public class SourceLoader {
+
+    /** BOMs in the order to check them: UTF-32LE starts with the same bytes as UTF-16LE. */
+    private static final BOM[] BOMS = { BOM.UTF_32_LE, BOM.UTF_32_BE, BOM.UTF_8, BOM.UTF_16_LE,
+        BOM.UTF_16_BE };
+
+    private final Charset encoding;
+
+    /**
+     * @param encoding
+     *            the encoding of the sources.
+     */
+    public SourceLoader(Charset encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Turn the first <i>length</i> bytes of <i>bytes</i> into a String, skipping any byte order
+     * mark.
+     */
+    String decode(byte[] bytes, int length) {
+        int bomLength = bomLength(bytes, length);
+        return new String(bytes, bomLength, length - bomLength, encoding);
+    }
+
+    /** How long the byte order mark at the start of <i>bytes</i> is, if there is one. */
+    private int bomLength(byte[] bytes, int length) {
+        for (BOM bom : BOMS) {
+            if (startsWith(bytes, length, bom.getBytes())) {
+                return bom.getBytes().length;
+            }
+        }
+        return 0;
+    }
+
+    /** The encoding of the sources. */
+    public Charset getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Read the whole of <i>file</i>.
+     */
+    public String load(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": too big to lint");
+            }
+            // Read into the heap rather than mapping, as a mapped file stays locked on Windows
+            // until the mapping is garbage collected.
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+                // Keep reading.
+            }
+            return decode(bytes.array(), bytes.position());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read the whole of <i>in</i>, for when there's no file to read (e.g. stdin). The stream is
+     * not closed.
+     */
+    public String load(InputStream in) throws IOException {
+        byte[] buf = new byte[8192];
+        int len = 0;
+        int n;
+        while ((n = in.read(buf, len, buf.length - len)) != -1) {
+            len += n;
+            if (len == buf.length) {
+                byte[] bigger = new byte[buf.length * 2];
+                System.arraycopy(buf, 0, bigger, 0, len);
+                buf = bigger;
+            }
+        }
+        return decode(buf, len);
+    }
+
+    private boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+        if (prefix.length == 0 || length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.googlecode.jslint4java;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out a single copy of each equal string, so that values which turn up over and over (like
+ * the reasons given for issues, of which there are only a few hundred) are only kept once.
+ *
+ * <p>
+ * Unlike {@link String#intern()}, strings are only held weakly, so that they can be collected
+ * once nothing else uses them, and they don't take up permanent space. There's no lock to take:
+ * issues are built by every thread in a {@link JSLintPool} at once.
+ */
+final class StringInterner {
+
+    /**
+     * A weak reference to a string, which is equal to any other reference to an equal string.
+     * Once cleared, it's only equal to itself, which is enough to remove it.
+     */
+    private static final class Ref extends WeakReference<String> {
+        private final int hash;
+
+        Ref(String s, ReferenceQueue<String> queue) {
+            super(s, queue);
+            hash = s.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Ref)) {
+                return false;
+            }
+            String s = get();
+            return s != null && s.equals(((Ref) obj).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Shared by every issue. */
+    static final StringInterner ISSUES = new StringInterner();
+
+    private final ConcurrentMap<Ref, Ref> pool = new ConcurrentHashMap<Ref, Ref>();
+
+    private final ReferenceQueue<String> queue = new ReferenceQueue<String>();
+
+    /** Forget the strings which have been collected. */
+    private void expunge() {
+        Reference<? extends String> ref;
+        while ((ref = queue.poll()) != null) {
+            pool.remove(ref);
+        }
+    }
+
+    /** The canonical copy of <i>s</i>, which is <i>s</i> itself if it's the first seen. */
+    String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        expunge();
+        Ref ref = new Ref(s, queue);
+        while (true) {
+            Ref existing = pool.putIfAbsent(ref, ref);
+            if (existing == null) {
+                return s;
+            }
+            String canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            // Collected since we found it: make way for ours.
+            pool.remove(existing, existing);
+        }
+    }
+}
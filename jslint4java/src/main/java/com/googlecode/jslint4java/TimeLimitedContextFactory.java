@@ -4,17 +4,13 @@ import java.util.concurrent.TimeUnit;
 
 import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Scriptable;
 
 /**
  * A ContextFactory that allows specification of a timeout. This is mostly
  * copied from the example in the ContextFactory javadocs.
  */
-public class TimeLimitedContextFactory extends ContextFactory {
-
-    /** Check time after this many ops. */
-    private static final int OPS_QUANTUM = 10000;
+public class TimeLimitedContextFactory extends JSLintContextFactory {
 
     @SuppressWarnings("serial")
     public static class TimeExceededException extends IllegalStateException {
@@ -43,15 +39,49 @@ public class TimeLimitedContextFactory extends ContextFactory {
      *            the unit of maxTime.
      */
     public TimeLimitedContextFactory(long maxTime, TimeUnit timeUnit) {
+        this(maxTime, timeUnit, DEFAULT_OPTIMIZATION_LEVEL);
+    }
+
+    /**
+     * Create a new {@link TimeLimitedContextFactory}.
+     *
+     * @param maxTime
+     *            the maximum amount of time that a JavaScript execution is
+     *            allowed to take.
+     * @param timeUnit
+     *            the unit of maxTime.
+     * @param optimizationLevel
+     *            -1 for the interpreter, or 0 to 9 to compile.
+     * @see JSLintContextFactory#JSLintContextFactory(int)
+     */
+    public TimeLimitedContextFactory(long maxTime, TimeUnit timeUnit, int optimizationLevel) {
+        this(maxTime, timeUnit, optimizationLevel, DEFAULT_OBSERVER_QUANTUM);
+    }
+
+    /**
+     * Create a new {@link TimeLimitedContextFactory}.
+     *
+     * @param maxTime
+     *            the maximum amount of time that a JavaScript execution is
+     *            allowed to take.
+     * @param timeUnit
+     *            the unit of maxTime.
+     * @param optimizationLevel
+     *            -1 for the interpreter, or 0 to 9 to compile.
+     * @param observerQuantum
+     *            how many instructions to run between checks of the time.
+     * @see JSLintContextFactory#JSLintContextFactory(int, int)
+     */
+    public TimeLimitedContextFactory(long maxTime, TimeUnit timeUnit, int optimizationLevel,
+            int observerQuantum) {
+        super(optimizationLevel, observerQuantum);
         maxTimeNanos = timeUnit.toNanos(maxTime);
     }
 
-    /** Create a TimeLimitedContext that runs the observer every 10k ops. */
+    /** Create a TimeLimitedContext. */
     @Override
     protected Context makeContext() {
-        TimeLimitedContext cx = new TimeLimitedContext(this);
-        cx.setInstructionObserverThreshold(OPS_QUANTUM);
-        return cx;
+        return new TimeLimitedContext(this);
     }
 
     /** Record start time in context. */
@@ -66,6 +96,7 @@ public class TimeLimitedContextFactory extends ContextFactory {
     /** Enforce time restrictions. */
     @Override
     protected void observeInstructionCount(Context cx, int instructionCount) {
+        super.observeInstructionCount(cx, instructionCount);
         TimeLimitedContext tlcx = (TimeLimitedContext) cx;
         long currentTime = System.nanoTime();
         long durationNanos = currentTime - tlcx.startTime;
@@ -0,0 +1,85 @@
+package com.googlecode.jslint4java;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Hooks for tracing what jslint4java is doing. On a JVM with Java Flight Recorder, these become
+ * JFR events (see {@link JfrTracing}); elsewhere they do nothing.
+ *
+ * <p>
+ * Each {@code xxxStarted()} method returns a handle to pass to the matching
+ * {@code xxxFinished()}, or null if nothing is being recorded, in which case there's no need to
+ * call it. Callers should skip gathering details for a null handle.
+ */
+class Tracing {
+
+    /** Set this system property to "false" to turn off tracing altogether. */
+    static final String PROPERTY = "jslint4java.jfr";
+
+    /** The tracing for this JVM. */
+    static final Tracing INSTANCE = load();
+
+    /**
+     * Use JFR if this JVM has it. {@link JfrTracing} is only loaded after checking, as it can't
+     * be loaded at all without JFR.
+     */
+    private static Tracing load() {
+        if ("false".equals(System.getProperty(PROPERTY))) {
+            return new Tracing();
+        }
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return (Tracing) Class.forName("com.googlecode.jslint4java.JfrTracing").newInstance();
+        } catch (Exception e) {
+            return new Tracing();
+        } catch (LinkageError e) {
+            return new Tracing();
+        }
+    }
+
+    /** Describe why something was stopped by <i>failure</i>. */
+    static String outcome(RuntimeException failure) {
+        if (failure instanceof LintWatchdog.AbortedException) {
+            return "aborted: " + ((LintWatchdog.AbortedException) failure).getReason();
+        } else if (failure instanceof TimeLimitedContextFactory.TimeExceededException) {
+            return "timeout";
+        } else if (failure instanceof CancellationException) {
+            return "cancelled";
+        }
+        return "failed: " + failure.getClass().getName();
+    }
+
+    /** Making a {@link JSLintResult} from the state left by a lint. */
+    Object buildStarted() {
+        return null;
+    }
+
+    void buildFinished(Object handle, String systemId, ResultDetail detail, int issueCount) {
+    }
+
+    /** Compiling jslint.js. */
+    Object compileStarted() {
+        return null;
+    }
+
+    void compileFinished(Object handle, String name, int sourceLength, int optimizationLevel,
+            String outcome) {
+    }
+
+    /** Running JSLINT over some source. */
+    Object lintStarted() {
+        return null;
+    }
+
+    void lintFinished(Object handle, String systemId, int sourceLength, int optionsHash,
+            long instructionCount, int issueCount, String outcome) {
+    }
+
+    /** Generating the HTML report. */
+    Object reportStarted() {
+        return null;
+    }
+
+    void reportFinished(Object handle, String systemId, boolean errorsOnly, int reportLength) {
+    }
+}
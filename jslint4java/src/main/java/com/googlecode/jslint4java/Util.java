@@ -153,10 +153,11 @@ final class Util {
      * @throws IOException
      */
     static String readerToString(Reader reader) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        int c;
-        while ((c = reader.read()) != -1) {
-            sb.append((char) c);
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[8192];
+        int n;
+        while ((n = reader.read(buf)) != -1) {
+            sb.append(buf, 0, n);
         }
         return sb.toString();
     }
@@ -13,6 +13,9 @@ import com.beust.jcommander.Parameter;
  */
 class Flags {
 
+    @Parameter(names = "--cache-dir", description = "Keep results in this directory, and reuse them for unchanged files")
+    public String cacheDir;
+
     @Parameter(names = "--encoding", description = "Specify the input encoding", converter = CharsetConverter.class)
     public Charset encoding;
 
@@ -25,6 +28,12 @@ class Flags {
     @Parameter(names = "--report", description = "Display report in different formats: plain, xml, junit, checkstyle and report")
     public String report;
 
+    @Parameter(names = "--summary", description = "Print timings to stderr afterwards, with this many of the slowest files")
+    public int summary = -1;
+
+    @Parameter(names = "--threads", description = "How many files to lint at once (default: one per processor)")
+    public int threads = Runtime.getRuntime().availableProcessors();
+
     @Parameter(names = "--timeout", description = "Maximum number of seconds JSLint can run for")
     public long timeout = 0;
 
@@ -1,16 +1,17 @@
 package com.googlecode.jslint4java.cli;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterDescription;
@@ -18,10 +19,17 @@ import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameterized;
 import com.googlecode.jslint4java.Issue;
 import com.googlecode.jslint4java.JSLint;
+import com.googlecode.jslint4java.JSLintBatch;
 import com.googlecode.jslint4java.JSLintBuilder;
+import com.googlecode.jslint4java.JSLintPool;
 import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintLimits;
+import com.googlecode.jslint4java.LintSource;
+import com.googlecode.jslint4java.LintSummary;
 import com.googlecode.jslint4java.Option;
-import com.googlecode.jslint4java.UnicodeBomInputStream;
+import com.googlecode.jslint4java.ResultCache;
+import com.googlecode.jslint4java.ResultDetail;
+import com.googlecode.jslint4java.SourceLoader;
 import com.googlecode.jslint4java.formatter.CheckstyleXmlFormatter;
 import com.googlecode.jslint4java.formatter.JSLintResultFormatter;
 import com.googlecode.jslint4java.formatter.JSLintXmlFormatter;
@@ -74,6 +82,25 @@ class Main {
         }
     }
 
+    /**
+     * A file named on the command line, which is stdin if it's "-".
+     */
+    private final class FileArgument extends LintSource {
+        FileArgument(String file) {
+            super(file);
+        }
+
+        @Override
+        protected Reader open() throws IOException {
+            return new StringReader(read());
+        }
+
+        @Override
+        public String read() throws IOException {
+            return readFile(getName());
+        }
+    }
+
     /**
      * This is just to avoid calling {@link System#exit(int)} outside of main()…
      */
@@ -120,25 +147,34 @@ class Main {
         if (formatter.header() != null) {
             info(formatter.header());
         }
-        for (String file : files) {
-            lintFile(file);
-        }
+        lintFiles(files);
         if (formatter.footer() != null) {
             info(formatter.footer());
         }
+        if (summary != null) {
+            // Keep it apart from the report, which may well be XML.
+            summary.finish();
+            System.err.print(summary.format());
+        }
         return isErrored() ? 1 : 0;
     }
 
+    private ResultCache cache;
+
     private Charset encoding = Charset.defaultCharset();
 
     private boolean errored = false;
 
     private JSLintResultFormatter formatter;
 
-    private JSLint lint;
+    private JSLintPool pool;
 
     private final JSLintBuilder lintBuilder = new JSLintBuilder();
 
+    private SourceLoader loader;
+
+    private LintSummary summary;
+
     private void die(String message) {
         throw new DieException(message, 1);
     }
@@ -162,48 +198,74 @@ class Main {
         return errored;
     }
 
-    // Eclipse's static analysis thinks I never close the UnicodeBomInputStream below.
-    private void lintFile(String file) throws IOException {
-        BufferedReader reader = null;
+    /**
+     * Lint each of <i>files</i>, on as many threads as we've been asked for. The output is
+     * always in the same order as <i>files</i>: results which arrive early wait their turn.
+     */
+    private void lintFiles(List<String> files) throws IOException {
+        List<LintSource> sources = new ArrayList<LintSource>(files.size());
+        for (String file : files) {
+            sources.add(new FileArgument(file));
+        }
+        JSLintBatch batch = new JSLintBatch(pool);
+        if (cache != null) {
+            batch.setLinter(new JSLintBatch.Linter() {
+                public JSLintResult lint(JSLint lint, LintSource source, LintLimits limits)
+                        throws IOException {
+                    return cache.lint(lint, source.getName(), source.read());
+                }
+            });
+        }
         try {
-            reader = readerForFile(file);
-            JSLintResult result = lint.lint(file, reader);
-            String msg = formatter.format(result);
-            if (msg.length() > 0) {
-                info(msg);
+            Iterator<JSLintResult> results = batch.lint(sources);
+            while (results.hasNext()) {
+                report(results.next());
             }
-            if (!result.getIssues().isEmpty()) {
-                setErrored(true);
-            }
-        } catch (FileNotFoundException e) {
-            die(file + ": No such file or directory.");
-        } finally {
-            if (reader != null) {
-                reader.close();
+        } catch (JSLintBatch.SourceException e) {
+            if (e.getCause() instanceof FileNotFoundException) {
+                die(e.getSource().getName() + ": No such file or directory.");
             }
+            throw e.getCause();
+        } catch (CancellationException e) {
+            throw new DieException("interrupted", 1);
+        }
+    }
+
+    private void report(JSLintResult result) {
+        String msg = formatter.format(result);
+        if (msg.length() > 0) {
+            info(msg);
+        }
+        if (!result.getIssues().isEmpty()) {
+            setErrored(true);
         }
     }
 
     /**
-     * Return a {@link BufferedReader} for {@code file}. If {@code file} is "-" then stdin will be
-     * used instead.
+     * Return the contents of {@code file}. If {@code file} is "-" then stdin will be used
+     * instead.
      */
-    @SuppressWarnings("resource")
-    private BufferedReader readerForFile(String file) throws IOException, FileNotFoundException {
-        InputStream inputStream = "-".equals(file) ? System.in : new FileInputStream(file);
-        return new BufferedReader(new InputStreamReader(
-                new UnicodeBomInputStream(inputStream).skipBOM(), encoding));
+    private String readFile(String file) throws IOException {
+        return "-".equals(file) ? loader.load(System.in) : loader.load(new File(file));
     }
 
-    private JSLint makeLint(Flags flags) {
+    /**
+     * Make a pool with an instance per thread. There's no point in having more threads than
+     * files.
+     */
+    private JSLintPool makePool(Flags flags) {
+        if (flags.threads < 1) {
+            die("--threads must be at least 1");
+        }
+        int size = Math.max(1, Math.min(flags.threads, flags.files.size()));
         try {
             if (flags.timeout > 0) {
                 lintBuilder.timeout(flags.timeout);
             }
             if (flags.jslint != null) {
-                return lintBuilder.fromFile(new File(flags.jslint));
+                return lintBuilder.poolFromFile(new File(flags.jslint), size);
             } else {
-                return lintBuilder.fromDefault();
+                return lintBuilder.poolFromDefault(size);
             }
         } catch (IOException e) {
             die(e.getMessage());
@@ -231,8 +293,23 @@ class Main {
         if (flags.encoding != null) {
             encoding = flags.encoding;
         }
-        lint = makeLint(flags);
+        loader = new SourceLoader(encoding);
+        if (flags.cacheDir != null) {
+            cache = new ResultCache(new File(flags.cacheDir));
+        }
+        if (flags.summary >= 0) {
+            summary = new LintSummary(flags.summary);
+        }
+        pool = makePool(flags);
+        if (summary != null) {
+            summary.startupCompleted();
+            pool.setMetrics(summary);
+        }
         setResultFormatter(flags.report);
+        // Only the report formatter needs more than the issues.
+        if (!(formatter instanceof ReportFormatter)) {
+            pool.setResultDetail(ResultDetail.ISSUES_ONLY);
+        }
         for (ParameterDescription pd : jc.getParameters()) {
             Parameterized p = pd.getParameterized();
             // Is it declared on JSLintFlags?
@@ -249,11 +326,11 @@ class Main {
                 }
                 Class<?> type = p.getType();
                 if (type.isAssignableFrom(Boolean.class)) {
-                    lint.addOption(o);
+                    pool.addOption(o);
                 }
                 // In theory, everything else should be a String for later parsing.
                 else if (type.isAssignableFrom(String.class)) {
-                    lint.addOption(o, (String) val);
+                    pool.addOption(o, (String) val);
                 } else {
                     die("unknown type \"" + type + "\" (for " + p.getName() + ")");
                 }
@@ -319,10 +396,10 @@ class Main {
 
     private void version() {
         // TODO: display jslint4java version as well.
-        if (lint == null) {
-            lint = lintBuilder.fromDefault();
+        if (pool == null) {
+            pool = lintBuilder.poolFromDefault(1);
         }
-        info("using jslint version " + lint.getEdition());
+        info("using jslint version " + pool.getEdition());
         throw new DieException(null, 0);
     }
 
@@ -0,0 +1,41 @@
+package com.googlecode.jslint4java.formatter;
+
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintMetrics;
+import com.googlecode.jslint4java.LintPhase;
+
+/**
+ * Wraps another formatter, and tells some {@link LintMetrics} how long each
+ * {@link #format(JSLintResult)} takes, as {@link LintPhase#FORMAT}.
+ */
+public class MeteredFormatter implements JSLintResultFormatter {
+
+    private final JSLintResultFormatter delegate;
+
+    private final LintMetrics metrics;
+
+    public MeteredFormatter(JSLintResultFormatter delegate, LintMetrics metrics) {
+        if (delegate == null || metrics == null) {
+            throw new IllegalArgumentException("delegate and metrics may not be null");
+        }
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public String footer() {
+        return delegate.footer();
+    }
+
+    public String format(JSLintResult result) {
+        long before = System.nanoTime();
+        try {
+            return delegate.format(result);
+        } finally {
+            metrics.phaseCompleted(result.getName(), LintPhase.FORMAT, System.nanoTime() - before);
+        }
+    }
+
+    public String header() {
+        return delegate.header();
+    }
+}
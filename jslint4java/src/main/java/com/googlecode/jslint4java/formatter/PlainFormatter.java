@@ -45,9 +45,11 @@ public class PlainFormatter implements JSLintResultFormatter {
         if (evidence != null && !"".equals(evidence)) {
             sb.append(evidence);
             sb.append(nl);
-            // character is now one-based.  But we want to be robust (issue 85).
-            if (issue.getCharacter() > 0) {
-                sb.append(spaces(issue.getCharacter() - 1));
+            // character is now one-based.  But we want to be robust (issue 85).  The evidence
+            // may also be an excerpt, starting part way along the line.
+            int column = issue.getCharacter() - 1 - issue.getEvidenceOffset();
+            if (column > 0) {
+                sb.append(spaces(column));
             }
             sb.append("^");
             sb.append(nl);
@@ -0,0 +1,119 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class CachingJSLintTest {
+
+    private static final String JS = "var a = 'lint this'";
+
+    private final JSLintPool pool = new JSLintBuilder().poolFromDefault(2);
+
+    private final CachingJSLint lint = new CachingJSLint(pool, 2);
+
+    @Test
+    public void secondLintIsAHit() throws Exception {
+        JSLintResult first = lint.lint("a.js", JS);
+        JSLintResult second = lint.lint("a.js", JS);
+        assertThat(second.getIssues(), hasSize(1));
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(lint.getMissCount(), is(1L));
+        assertThat(lint.getHitCount(), is(1L));
+    }
+
+    @Test
+    public void hitsAreRenamed() throws Exception {
+        lint.lint("a.js", JS);
+        JSLintResult result = lint.lint("b.js", JS);
+        assertThat(lint.getHitCount(), is(1L));
+        assertThat(result.getName(), is("b.js"));
+        assertThat(result.getIssues().get(0).getSystemId(), is("b.js"));
+    }
+
+    @Test
+    public void optionsArePartOfTheKey() throws Exception {
+        String evalJs = "eval('1');";
+        assertThat(lint.lint("-", evalJs).getIssues(), hasSize(1));
+        LintOptions evil = new LintOptions.Builder().addOption(Option.EVIL).build();
+        assertThat(lint.lint("-", evalJs, evil).getIssues(), empty());
+        assertThat(lint.getMissCount(), is(2L));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws Exception {
+        lint.lint("-", "var a = 1;");
+        lint.lint("-", "var b = 1;");
+        lint.lint("-", "var a = 1;");
+        lint.lint("-", "var c = 1;");
+        assertThat(lint.size(), is(2));
+        assertThat(lint.getEvictionCount(), is(1L));
+        // "a" was used more recently than "b", so it should still be there.
+        lint.lint("-", "var a = 1;");
+        assertThat(lint.getHitCount(), is(2L));
+        lint.lint("-", "var b = 1;");
+        assertThat(lint.getMissCount(), is(4L));
+    }
+
+    @Test
+    public void concurrentLintsOfTheSameSourceShareOneRun() throws Exception {
+        String slowLint = "function JSLINT(s, o) { var i; for (i = 0; i < 3000000; i += 1) {}"
+                + " JSLINT.errors = []; return true; } JSLINT.edition = 'slow';";
+        JSLintPool slowPool = new JSLintBuilder().poolFromReader(new StringReader(slowLint),
+                "slow.js", 4);
+        final CachingJSLint slow = new CachingJSLint(slowPool, 10);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<JSLintResult>> results = Lists.newArrayList();
+            for (int i = 0; i < 4; i++) {
+                final String name = "file-" + i;
+                results.add(executor.submit(new Callable<JSLintResult>() {
+                    public JSLintResult call() throws Exception {
+                        start.await();
+                        return slow.lint(name, JS);
+                    }
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < 4; i++) {
+                assertThat(results.get(i).get().getName(), is("file-" + i));
+            }
+            assertThat(slow.getMissCount(), is(1L));
+            assertThat(slow.getHitCount(), is(3L));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failuresAreNotCached() throws Exception {
+        JSLintPool failing = new JSLintBuilder().poolFromReader(new StringReader(
+                "function JSLINT(s, o) { throw new Error('no'); } JSLINT.edition = 'fail';"), "fail.js", 1);
+        CachingJSLint caching = new CachingJSLint(failing, 10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                caching.lint("-", JS);
+            } catch (RuntimeException e) {
+                // Expected.
+            }
+        }
+        assertThat(caching.size(), is(0));
+        assertThat(caching.getMissCount(), is(2L));
+    }
+}
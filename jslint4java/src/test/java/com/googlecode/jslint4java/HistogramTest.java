@@ -0,0 +1,52 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+    private final Histogram histogram = new Histogram();
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        long[] values = { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE };
+        for (long value : values) {
+            int bucket = Histogram.bucket(value);
+            assertThat(Histogram.highestValue(bucket), is(greaterThanOrEqualTo(value)));
+            if (bucket > 0) {
+                assertThat(Histogram.highestValue(bucket - 1), is(lessThanOrEqualTo(value - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void percentilesAreClose() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMax(), is(1000000L));
+        assertThat(histogram.getMean(), is(500500.0));
+        long p50 = histogram.getPercentile(50);
+        assertThat(p50, is(greaterThanOrEqualTo(500000L)));
+        assertThat(p50, is(lessThanOrEqualTo(500000L * 9 / 8)));
+        assertThat(histogram.getPercentile(100), is(1000000L));
+    }
+
+    @Test
+    public void emptyIsAllZero() {
+        assertThat(histogram.getPercentile(99), is(0L));
+        assertThat(histogram.getMean(), is(0.0));
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        histogram.record(-5);
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getCount(), is(1L));
+    }
+}
@@ -41,6 +41,63 @@ public class IssueTest {
         assertThat(issue.getCharacter(), is(0));
     }
 
+    @Test
+    public void testEvidenceWidthKeepsAnExcerpt() {
+        String line = "0123456789abcdefghij";
+        Issue middle = new IssueBuilder("foo.js", 1, 11, "bad").evidence(line).evidenceWidth(6)
+                .build();
+        assertThat(middle.getEvidence(), is("789abc"));
+        assertThat(middle.getEvidenceOffset(), is(7));
+        Issue start = new IssueBuilder("foo.js", 1, 1, "bad").evidence(line).evidenceWidth(6)
+                .build();
+        assertThat(start.getEvidence(), is("012345"));
+        assertThat(start.getEvidenceOffset(), is(0));
+        Issue end = new IssueBuilder("foo.js", 1, 20, "bad").evidence(line).evidenceWidth(6)
+                .build();
+        assertThat(end.getEvidence(), is("efghij"));
+        assertThat(end.getEvidenceOffset(), is(14));
+    }
+
+    @Test
+    public void testEvidenceWidthNarrowsAnExcerpt() {
+        IssueBuilder b = new IssueBuilder("foo.js", 1, 15, "bad").evidence("789abcdefghij")
+                .evidenceOffset(7).evidenceWidth(6);
+        Issue first = b.build();
+        assertThat(first.getEvidence(), is("bcdefg"));
+        assertThat(first.getEvidenceOffset(), is(11));
+        // Building again gives the same issue.
+        Issue second = b.build();
+        assertThat(second.getEvidence(), is("bcdefg"));
+        assertThat(second.getEvidenceOffset(), is(11));
+    }
+
+    @Test
+    public void testEvidenceWidthLeavesShortLinesAlone() {
+        Issue issue = new IssueBuilder("foo.js", 1, 2, "bad").evidence("abc").evidenceWidth(6)
+                .build();
+        assertThat(issue.getEvidence(), is("abc"));
+        assertThat(issue.getEvidenceOffset(), is(0));
+        Issue whole = new IssueBuilder("foo.js", 1, 2, "bad").evidence("abcdefgh")
+                .evidenceWidth(Issue.WHOLE_LINE).build();
+        assertThat(whole.getEvidence(), is("abcdefgh"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvidenceWidthMustBeValid() {
+        new IssueBuilder("foo.js", 1, 1, "bad").evidenceWidth(-2);
+    }
+
+    @Test
+    public void testReasonsAreShared() {
+        Issue a = new IssueBuilder(new String("foo.js"), 1, 1, new String("you broke it"))
+                .raw(new String("you broke {a}")).build();
+        Issue b = new IssueBuilder(new String("foo.js"), 2, 1, new String("you broke it"))
+                .raw(new String("you broke {a}")).build();
+        assertThat(b.getReason(), is(sameInstance(a.getReason())));
+        assertThat(b.getRaw(), is(sameInstance(a.getRaw())));
+        assertThat(b.getSystemId(), is(sameInstance(a.getSystemId())));
+    }
+
     @Test
     public void testToString() {
         Issue issue = new IssueBuilder("foo.js", 1, 1, "you broke it").build();
@@ -0,0 +1,207 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+public class JSLintBatchTest {
+
+    /** A source which won't be readable until we say so. */
+    private static final class SlowSource extends LintSource {
+        private final CountDownLatch latch;
+
+        SlowSource(String name, CountDownLatch latch) {
+            super(name);
+            this.latch = latch;
+        }
+
+        @Override
+        protected Reader open() throws IOException {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted");
+            }
+            return new StringReader("var a = 1;");
+        }
+    }
+
+    private static final class Collector implements JSLintBatch.Callback {
+        private final List<String> names = Lists.newArrayList();
+
+        public void result(JSLintResult result) {
+            names.add(result.getName());
+        }
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final JSLintPool pool = new JSLintBuilder().poolFromDefault(2);
+
+    private final JSLintBatch batch = new JSLintBatch(pool);
+
+    private List<LintSource> sources(int n) {
+        List<LintSource> sources = Lists.newArrayList();
+        for (int i = 0; i < n; i++) {
+            sources.add(LintSource.fromString("file-" + i, "var a = " + i));
+        }
+        return sources;
+    }
+
+    @Test
+    public void callbackSeesEverySourceInSubmissionOrder() throws Exception {
+        Collector collector = new Collector();
+        batch.lint(sources(10), collector);
+        List<String> expected = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            expected.add("file-" + i);
+        }
+        assertThat(collector.names, is(expected));
+    }
+
+    @Test
+    public void completionOrderHandsOverQuickResultsFirst() throws Exception {
+        batch.setOrder(JSLintBatch.Order.COMPLETION);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<LintSource> sources = Lists.newArrayList();
+        sources.add(new SlowSource("slow", latch));
+        sources.add(LintSource.fromString("quick", "var a = 1;"));
+        Iterator<JSLintResult> results = batch.lint(sources);
+        assertThat(results.next().getName(), is("quick"));
+        latch.countDown();
+        assertThat(results.next().getName(), is("slow"));
+        assertThat(results.hasNext(), is(false));
+    }
+
+    @Test
+    public void emptyBatchIsFine() throws Exception {
+        Collector collector = new Collector();
+        batch.lint(sources(0), collector);
+        assertThat(collector.names, is(empty()));
+    }
+
+    @Test
+    public void filesAreReadWithoutByteOrderMark() throws Exception {
+        File file = tmp.newFile("bom.js");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF });
+        out.write("var a = 1;\n".getBytes(Charsets.UTF_8));
+        out.close();
+        Iterator<JSLintResult> results = batch.lint(Lists.newArrayList(LintSource.fromFile(file,
+                Charsets.UTF_8)));
+        assertThat(results.next().getIssues(), is(empty()));
+    }
+
+    @Test
+    public void iteratorReturnsResults() throws Exception {
+        Iterator<JSLintResult> results = batch.lint(sources(3));
+        List<JSLintResult> list = Lists.newArrayList(results);
+        assertThat(list, hasSize(3));
+        // "var a = 0" is missing its semicolon.
+        assertThat(list.get(0).getIssues(), hasSize(1));
+    }
+
+    @Test
+    public void iteratorThrowsForUnreadableSource() throws Exception {
+        List<LintSource> sources = Lists.newArrayList(LintSource.fromFile(new File(tmp.getRoot(),
+                "missing.js"), Charsets.UTF_8));
+        thrown.expect(JSLintBatch.SourceException.class);
+        batch.lint(sources).next();
+    }
+
+    @Test
+    public void linterReplacesReadingAndLinting() throws Exception {
+        final List<String> linted = Collections.synchronizedList(Lists.<String> newArrayList());
+        batch.setLinter(new JSLintBatch.Linter() {
+            public JSLintResult lint(JSLint lint, LintSource source, LintLimits limits) {
+                linted.add(source.getName());
+                return lint.lint(source.getName(), "var b = 1", lint.getOptions(), limits);
+            }
+        });
+        Collector collector = new Collector();
+        batch.lint(sources(3), collector);
+        assertThat(linted, containsInAnyOrder("file-0", "file-1", "file-2"));
+        assertThat(collector.names, is(Arrays.asList("file-0", "file-1", "file-2")));
+        // Each instance went back to the pool.
+        assertThat(pool.borrow(1, TimeUnit.SECONDS), is(notNullValue()));
+        assertThat(pool.borrow(1, TimeUnit.SECONDS), is(notNullValue()));
+    }
+
+    @Test
+    public void unreadableSourceFailsBatch() throws Exception {
+        List<LintSource> sources = sources(2);
+        sources.add(LintSource.fromFile(new File(tmp.getRoot(), "missing.js"), Charsets.UTF_8));
+        thrown.expect(FileNotFoundException.class);
+        batch.lint(sources, new Collector());
+    }
+
+    @Test
+    public void failingToQueueCancelsWhatWasQueued() throws Exception {
+        final List<Runnable> queued = Lists.newArrayList();
+        Executor executor = new Executor() {
+            public void execute(Runnable command) {
+                if (queued.size() == 2) {
+                    throw new RejectedExecutionException("full");
+                }
+                queued.add(command);
+            }
+        };
+        try {
+            new JSLintBatch(pool, executor).lint(sources(5));
+            fail("expected a RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+        assertThat(queued, hasSize(2));
+        for (Runnable task : queued) {
+            assertThat(((Future<?>) task).isCancelled(), is(true));
+        }
+    }
+
+    @Test
+    public void usesSuppliedExecutor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Collector collector = new Collector();
+            new JSLintBatch(pool, executor).lint(sources(5), collector);
+            assertThat(collector.names, containsInAnyOrder("file-0", "file-1", "file-2",
+                    "file-3", "file-4"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -2,17 +2,25 @@ package com.googlecode.jslint4java;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.URL;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Script;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
@@ -27,6 +35,9 @@ public class JSLintBuilderTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     /**
      * A minimal test that a JSLint looks OK. Just tests we can lint an empty
      * string.
@@ -73,6 +84,124 @@ public class JSLintBuilderTest {
         assertJSLintOK(builder.fromDefault());
     }
 
+    @Test
+    public void classCacheIsReused() throws Exception {
+        File cacheDir = new File(tmp.getRoot(), "classes");
+        File f = new File(getStubJslint().toURI());
+        assertJSLintOK(new JSLintBuilder().classCacheDirectory(cacheDir).fromFile(f));
+        File[] classes = cacheDir.listFiles();
+        assertThat(classes, arrayWithSize(1));
+        long modified = classes[0].lastModified();
+        assertJSLintOK(new JSLintBuilder().classCacheDirectory(cacheDir).fromFile(f));
+        assertThat(cacheDir.listFiles(), arrayWithSize(1));
+        assertThat(classes[0].lastModified(), is(modified));
+    }
+
+    @Test
+    public void classCacheRecoversFromDamage() throws Exception {
+        File cacheDir = tmp.getRoot();
+        File f = new File(getStubJslint().toURI());
+        builder.classCacheDirectory(cacheDir).fromFile(f);
+        File[] classes = cacheDir.listFiles();
+        FileWriter writer = new FileWriter(classes[0]);
+        writer.write("not a class file");
+        writer.close();
+        assertJSLintOK(new JSLintBuilder().classCacheDirectory(cacheDir).fromFile(f));
+    }
+
+    @Test
+    public void classCacheWorksWithDefault() throws Exception {
+        assertJSLintOK(builder.classCacheDirectory(tmp.getRoot()).fromDefault());
+    }
+
+    @Test
+    public void classCacheWorksWithTimeout() throws Exception {
+        thrown.expect(TimeLimitedContextFactory.TimeExceededException.class);
+        JSLint lint = builder.classCacheDirectory(tmp.getRoot()).timeout(0, TimeUnit.NANOSECONDS)
+                .fromDefault();
+        lint.lint("-", "alert(42)");
+    }
+
+    @Test
+    public void canBuildPoolFromReader() throws Exception {
+        JSLintPool pool = builder.poolFromReader(new StringReader(
+                "function JSLINT(s, o) { JSLINT.errors = []; return true; }"), "stub.js", 2);
+        assertThat(pool.size(), is(2));
+        assertThat(pool.lint("-", "").getIssues(), empty());
+    }
+
+    @Test
+    public void defaultJSLintIsPrecompiled() throws Exception {
+        // Generated during the build; see the antrun plugin in pom.xml.
+        Class<?> cls = Class.forName(JSLintBuilder.PRECOMPILED_JSLINT);
+        assertThat(Script.class.isAssignableFrom(cls), is(true));
+    }
+
+    @Test
+    public void defaultJSLintHasTheDigestOfItsSource() throws Exception {
+        String source = Resources.toString(Resources.getResource(
+                "com/googlecode/jslint4java/jslint.js"), Charsets.UTF_8);
+        assertThat(builder.fromDefault().getScriptDigest(), is(JSLintScript.digest(source)));
+    }
+
+    @Test
+    public void interpretedModeWorks() throws Exception {
+        assertJSLintOK(builder.optimizationLevel(-1).fromDefault());
+    }
+
+    @Test
+    public void interpretedModeSkipsClassCache() throws Exception {
+        assertJSLintOK(builder.classCacheDirectory(tmp.getRoot()).optimizationLevel(-1)
+                .fromDefault());
+        assertThat(tmp.getRoot().listFiles(), arrayWithSize(0));
+    }
+
+    @Test
+    public void interpretedModeWorksWithTimeout() throws Exception {
+        thrown.expect(TimeLimitedContextFactory.TimeExceededException.class);
+        JSLint lint = builder.optimizationLevel(-1).timeout(0, TimeUnit.NANOSECONDS).fromDefault();
+        lint.lint("-", "alert(42)");
+    }
+
+    @Test
+    public void invalidOptimizationLevelIsRejected() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        builder.optimizationLevel(10);
+    }
+
+    @Test
+    public void observerQuantumMustBePositive() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        builder.observerQuantum(0);
+    }
+
+    @Test
+    public void observerQuantumWorks() throws Exception {
+        String js = "var a = [1, 2, 3];\nfunction f(x) { return x + a.length; }";
+        JSLintResult coarse = builder.fromDefault().lint("-", js);
+        JSLintResult fine = builder.observerQuantum(100).fromDefault().lint("-", js);
+        assertThat(fine.getIssues(), hasSize(coarse.getIssues().size()));
+        // A finer quantum rounds less away.
+        assertThat(fine.getInstructionCount(), greaterThan(coarse.getInstructionCount()));
+    }
+
+    @Test
+    public void optimizationLevelWorks() throws Exception {
+        assertJSLintOK(builder.optimizationLevel(0).fromDefault());
+        assertJSLintOK(builder.optimizationLevel(9).fromClasspathResource(STUB_JSLINT));
+    }
+
+    @Test
+    public void standardObjectsAreSealedAfterFirstInstance() throws Exception {
+        // The first run may extend the standard objects, like jslint.js does.
+        String js = "if (!Array.prototype.lint) { Array.prototype.lint = 1; }\n"
+                + "function JSLINT(s, o) { Array.prototype.lint += 1; JSLINT.errors = []; }";
+        JSLintPool pool = builder.poolFromReader(new StringReader(js), "sneaky.js", 2);
+        // But they may not be changed after that.
+        thrown.expect(EvaluatorException.class);
+        pool.lint("-", "");
+    }
+
     @Test
     public void timeOutThrowsException() {
         thrown.expect(TimeLimitedContextFactory.TimeExceededException.class);
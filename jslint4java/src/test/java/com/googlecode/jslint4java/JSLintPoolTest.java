@@ -0,0 +1,191 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.collect.Lists;
+
+public class JSLintPoolTest {
+
+    private static final String EVAL_JS = "eval('1');";
+    private static final String EXPECTED_SEMICOLON = "Expected ';' and instead saw '(end)'.";
+    private static final String JS = "var a = 'lint this'";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final JSLintPool pool = new JSLintBuilder().poolFromDefault(2);
+
+    @Test
+    public void borrowHandsOutDistinctInstances() throws Exception {
+        JSLint one = pool.borrow();
+        JSLint two = pool.borrow();
+        assertThat(one, is(not(sameInstance(two))));
+        pool.release(one);
+        pool.release(two);
+    }
+
+    @Test
+    public void borrowTimesOutWhenExhausted() throws Exception {
+        JSLint one = pool.borrow();
+        JSLint two = pool.borrow();
+        assertThat(pool.borrow(10, TimeUnit.MILLISECONDS), is(nullValue()));
+        pool.release(one);
+        pool.release(two);
+    }
+
+    @Test
+    public void borrowedInstancesHavePoolOptions() throws Exception {
+        pool.addOption(Option.EVIL);
+        JSLint lint = pool.borrow();
+        try {
+            assertThat(lint.lint("-", EVAL_JS).getIssues(), empty());
+        } finally {
+            pool.release(lint);
+        }
+    }
+
+    @Test
+    public void borrowResetsOptionsSetByPreviousBorrower() throws Exception {
+        JSLint lint = pool.borrow();
+        lint.addOption(Option.EVIL);
+        pool.release(lint);
+        pool.release(pool.borrow()); // the other one.
+        lint = pool.borrow();
+        try {
+            assertThat(lint.lint("-", EVAL_JS).getIssues(), hasSize(1));
+        } finally {
+            pool.release(lint);
+        }
+    }
+
+    @Test
+    public void canLintWithPerCallOptions() throws Exception {
+        LintOptions evil = new LintOptions.Builder().addOption(Option.EVIL).build();
+        assertThat(pool.lint("-", EVAL_JS, evil).getIssues(), empty());
+        assertThat(pool.lint("-", EVAL_JS).getIssues(), hasSize(1));
+    }
+
+    @Test
+    public void canLintInManyThreads() throws Exception {
+        int nThreads = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        List<Future<JSLintResult>> results = Lists.newArrayList();
+        for (int i = 0; i < nThreads * 4; i++) {
+            final String name = "file-" + i;
+            results.add(executor.submit(new Callable<JSLintResult>() {
+                public JSLintResult call() throws Exception {
+                    return pool.lint(name, JS);
+                }
+            }));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            JSLintResult result = results.get(i).get();
+            assertThat(result.getName(), is("file-" + i));
+            assertThat(result.getIssues(), hasSize(1));
+            assertThat(result.getIssues().get(0).getReason(), is(EXPECTED_SEMICOLON));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void lintAsyncReturnsResult() throws Exception {
+        Future<JSLintResult> future = pool.lintAsync("async.js", JS);
+        JSLintResult result = future.get(10, TimeUnit.SECONDS);
+        assertThat(result.getName(), is("async.js"));
+        assertThat(result.getIssues().get(0).getReason(), is(EXPECTED_SEMICOLON));
+    }
+
+    @Test
+    public void lintAsyncCanBeCancelled() throws Exception {
+        JSLintPool forever = new JSLintBuilder().poolFromReader(new StringReader(
+                "function JSLINT(s, o) { while (true) { JSLINT.errors = []; } }"), "forever.js", 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            forever.setExecutor(executor);
+            Future<JSLintResult> future = forever.lintAsync("-", JS);
+            Thread.sleep(100);
+            assertThat(future.cancel(true), is(true));
+            // The instance is handed back once the lint notices it's been cancelled.
+            JSLint lint = forever.borrow(10, TimeUnit.SECONDS);
+            assertThat(lint, is(not(nullValue())));
+            forever.release(lint);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void releaseRejectsForeignInstance() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        pool.release(new JSLintBuilder().fromDefault());
+    }
+
+    @Test
+    public void releaseRejectsIdleInstance() throws Exception {
+        JSLint lint = pool.borrow();
+        pool.release(lint);
+        thrown.expect(IllegalStateException.class);
+        pool.release(lint);
+    }
+
+    @Test
+    public void racingReleasesOnlyHandBackOnce() throws Exception {
+        final JSLint lint = pool.borrow();
+        final CountDownLatch start = new CountDownLatch(1);
+        Callable<Boolean> release = new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                start.await();
+                try {
+                    pool.release(lint);
+                    return true;
+                } catch (IllegalStateException e) {
+                    return false;
+                }
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> a = executor.submit(release);
+            Future<Boolean> b = executor.submit(release);
+            start.countDown();
+            assertThat(a.get() ^ b.get(), is(true));
+        } finally {
+            executor.shutdown();
+        }
+        // Both instances, and no more.
+        JSLint one = pool.borrow();
+        JSLint two = pool.borrow();
+        assertThat(one, is(not(sameInstance(two))));
+        assertThat(pool.borrow(10, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void sizeIsAsRequested() throws Exception {
+        assertThat(pool.size(), is(2));
+    }
+
+    @Test
+    public void zeroSizedPoolIsRejected() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        new JSLintBuilder().poolFromDefault(0);
+    }
+}
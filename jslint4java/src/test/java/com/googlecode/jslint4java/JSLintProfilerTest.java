@@ -0,0 +1,120 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.googlecode.jslint4java.JSLintProfiler.FunctionProfile;
+import com.googlecode.jslint4java.JSLintProfiler.LineProfile;
+
+public class JSLintProfilerTest {
+
+    /** A jslint.js whose calls we know. */
+    private static final String BUSY = "function inner(n) {\n" // 1
+            + "    var i, s = 0;\n" // 2
+            + "    for (i = 0; i < n; i += 1) {\n" // 3
+            + "        s += i;\n" // 4
+            + "    }\n" // 5
+            + "    return s;\n" // 6
+            + "}\n" // 7
+            + "function outer(n) {\n" // 8
+            + "    return inner(n) + inner(n);\n" // 9
+            + "}\n" // 10
+            + "function JSLINT(source, options) {\n" // 11
+            + "    JSLINT.errors = [];\n" // 12
+            + "    outer(1000);\n" // 13
+            + "    return true;\n" // 14
+            + "}\n" // 15
+            + "JSLINT.errors = [];\n";
+
+    private final JSLintProfiler profiler = new JSLintProfiler();
+
+    private JSLint busy() throws Exception {
+        JSLint lint = new JSLintBuilder().profiler(profiler).fromReader(new StringReader(BUSY),
+                "busy.js");
+        profiler.reset();
+        return lint;
+    }
+
+    private FunctionProfile function(String name) {
+        for (FunctionProfile fp : profiler.getFunctions()) {
+            if (fp.getName().equals(name)) {
+                return fp;
+            }
+        }
+        throw new AssertionError("no profile for " + name + " in " + profiler.getSummary(100));
+    }
+
+    @Test
+    public void countsCalls() throws Exception {
+        JSLint lint = busy();
+        lint.lint("a.js", "");
+        lint.lint("b.js", "");
+        assertThat(function("JSLINT (busy.js:11)").getCalls(), is(2L));
+        assertThat(function("outer (busy.js:8)").getCalls(), is(2L));
+        assertThat(function("inner (busy.js:1)").getCalls(), is(4L));
+    }
+
+    @Test
+    public void totalIncludesCallees() throws Exception {
+        busy().lint("a.js", "");
+        FunctionProfile outer = function("outer (busy.js:8)");
+        FunctionProfile inner = function("inner (busy.js:1)");
+        assertThat(inner.getSelfNanos(), is(greaterThan(0L)));
+        assertThat(outer.getTotalNanos(), is(greaterThanOrEqualTo(outer.getSelfNanos()
+                + inner.getTotalNanos())));
+        assertThat(inner.getSourceName(), is("busy.js"));
+    }
+
+    @Test
+    public void countsLines() throws Exception {
+        busy().lint("a.js", "");
+        LineProfile hottest = null;
+        for (LineProfile lp : profiler.getLines()) {
+            if (lp.getLine() == 4) {
+                hottest = lp;
+            }
+        }
+        assertThat(hottest, is(notNullValue()));
+        assertThat(hottest.getHits(), is(2000L));
+    }
+
+    @Test
+    public void collapsesStacks() throws Exception {
+        busy().lint("a.js", "");
+        Map<String, Long> stacks = profiler.getCollapsedStacks();
+        String stack = "JSLINT (busy.js:11);outer (busy.js:8);inner (busy.js:1)";
+        assertThat(stacks, hasKey(stack));
+        StringWriter out = new StringWriter();
+        profiler.writeCollapsedStacks(out);
+        assertThat(out.toString(), containsString(stack + " " + stacks.get(stack) + "\n"));
+    }
+
+    @Test
+    public void resetForgetsEverything() throws Exception {
+        busy().lint("a.js", "");
+        profiler.reset();
+        assertThat(profiler.getFunctions(), is(empty()));
+        assertThat(profiler.getCollapsedStacks().isEmpty(), is(true));
+    }
+
+    @Test
+    public void profilesTheDefaultJSLint() throws Exception {
+        JSLint lint = new JSLintBuilder().profiler(profiler).fromDefault();
+        profiler.reset();
+        assertThat(lint.lint("a.js", "var a = 1").getIssues().size(), is(1));
+        assertThat(profiler.getFunctions().size(), is(greaterThan(10)));
+        assertThat(profiler.getSummary(5), containsString("jslint.js:"));
+    }
+}
@@ -4,9 +4,12 @@ package com.googlecode.jslint4java;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -54,6 +57,23 @@ public class JSLintTest {
         lint.addOption(Option.SLOPPY);
     }
 
+    @Test
+    public void testEvidenceIsSharedAlongALine() {
+        List<Issue> issues = lint("var a = 1, b = a == 1, c = b == 2").getIssues();
+        assertThat(issues.size() > 1, is(true));
+        assertThat(issues.get(1).getEvidence(), is(sameInstance(issues.get(0).getEvidence())));
+    }
+
+    @Test
+    public void testEvidenceWidth() {
+        lint.setEvidenceWidth(10);
+        List<Issue> issues = lint("var a = 1, b = a == 1, c = b == 2").getIssues();
+        Issue issue = issues.get(0);
+        assertThat(issue.getEvidence().length(), is(10));
+        assertThat("var a = 1, b = a == 1, c = b == 2".substring(issue.getEvidenceOffset()),
+                startsWith(issue.getEvidence()));
+    }
+
     @Test
     public void testAccurateColumnNumbers() {
         List<Issue> issues = lint("var foo = 1").getIssues();
@@ -215,6 +235,35 @@ public class JSLintTest {
         assertThat(html, containsString(EXPECTED_SEMICOLON));
     }
 
+    @Test
+    public void testPerCallOptions() throws Exception {
+        String eval_js = "eval('1');";
+        LintOptions evil = new LintOptions.Builder().addOption(Option.EVIL).build();
+        assertThat(lint.lint("-", eval_js, evil).getIssues(), empty());
+        // The options set on lint itself are unaffected.
+        assertIssues(lint(eval_js).getIssues(), "eval is evil.");
+        // And reusing the same options works again.
+        assertThat(lint.lint("-", eval_js, evil).getIssues(), empty());
+    }
+
+    @Test
+    public void testResultDetailData() throws Exception {
+        lint.setResultDetail(ResultDetail.DATA);
+        JSLintResult result = lint("var foo = 42");
+        assertIssues(result.getIssues(), EXPECTED_SEMICOLON);
+        assertThat(result.getGlobals(), contains("foo"));
+        assertThat(result.getReport(), is(nullValue()));
+    }
+
+    @Test
+    public void testResultDetailIssuesOnly() throws Exception {
+        lint.setResultDetail(ResultDetail.ISSUES_ONLY);
+        JSLintResult result = lint("var foo = 42");
+        assertIssues(result.getIssues(), EXPECTED_SEMICOLON);
+        assertThat(result.getGlobals(), empty());
+        assertThat(result.getReport(), is(nullValue()));
+    }
+
     @Test
     public void testResetOptions() throws Exception {
         String eval_js = "eval('1');";
@@ -0,0 +1,104 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JfrTracingTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+
+    private Recording start() {
+        Recording recording = new Recording();
+        for (String name : new String[] { "Compile", "Lint", "BuildResults", "Report" }) {
+            recording.enable("com.googlecode.jslint4java." + name);
+        }
+        recording.start();
+        return recording;
+    }
+
+    private void stop(Recording recording) throws Exception {
+        recording.stop();
+        File file = tmp.newFile("lint.jfr");
+        recording.dump(file.toPath());
+        recording.close();
+        events.addAll(RecordingFile.readAllEvents(file.toPath()));
+    }
+
+    private List<RecordedEvent> events(String name) {
+        List<RecordedEvent> found = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("com.googlecode.jslint4java." + name)) {
+                found.add(event);
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void jfrIsUsedWhenAvailable() {
+        assertThat(Tracing.INSTANCE, instanceOf(JfrTracing.class));
+    }
+
+    @Test
+    public void lintsAreRecorded() throws Exception {
+        JSLint lint = new JSLintBuilder().fromDefault();
+        Recording recording = start();
+        lint.lint("a.js", "var a = 1");
+        stop(recording);
+
+        List<RecordedEvent> lints = events("Lint");
+        assertThat(lints.size(), is(1));
+        RecordedEvent event = lints.get(0);
+        assertThat(event.getString("systemId"), is("a.js"));
+        assertThat(event.getInt("sourceLength"), is(9));
+        assertThat(event.getInt("issueCount"), is(1));
+        assertThat(event.getString("outcome"), is("ok"));
+
+        RecordedEvent build = events("BuildResults").get(0);
+        assertThat(build.getString("resultDetail"), is("FULL_REPORT"));
+        assertThat(build.getInt("issueCount"), is(1));
+        assertThat(events("Report").size(), is(1));
+    }
+
+    @Test
+    public void abortsAreRecorded() throws Exception {
+        JSLint lint = new JSLintBuilder().fromDefault();
+        Recording recording = start();
+        lint.lint("a.js", "var a = 1", LintOptions.EMPTY,
+                new LintLimits.Builder().timeout(0, TimeUnit.NANOSECONDS).build());
+        stop(recording);
+        assertThat(events("Lint").get(0).getString("outcome"), is("aborted: DEADLINE"));
+    }
+
+    @Test
+    public void compilesAreRecorded() throws Exception {
+        Recording recording = start();
+        new JSLintBuilder().optimizationLevel(-1).fromReader(new StringReader(
+                "function JSLINT() { JSLINT.errors = []; }"), "tiny.js");
+        stop(recording);
+        RecordedEvent event = events("Compile").get(0);
+        assertThat(event.getString("name"), is("tiny.js"));
+        assertThat(event.getInt("optimizationLevel"), is(-1));
+        assertThat(event.getInt("sourceLength"), is(greaterThan(0)));
+        assertThat(event.getString("outcome"), is("ok"));
+    }
+}
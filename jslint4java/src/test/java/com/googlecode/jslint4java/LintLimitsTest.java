@@ -0,0 +1,199 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class LintLimitsTest {
+
+    private static final String FOREVER = "function JSLINT(s, o) { while (true) { JSLINT.errors = []; } }\n"
+            + "JSLINT.errors = [];";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final JSLint lint = new JSLintBuilder().fromDefault();
+
+    private JSLint forever() throws Exception {
+        return new JSLintBuilder().fromReader(new StringReader(FOREVER), "forever.js");
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void noLimitsLintsAsNormal() throws Exception {
+        JSLintResult result = lint.lint("a.js", "var a = 1", LintOptions.EMPTY, LintLimits.NONE);
+        assertThat(result.isAborted(), is(false));
+        assertThat(result.getAbortReason(), is(nullValue()));
+        assertThat(result.getIssues(), hasSize(1));
+    }
+
+    @Test
+    public void cancelledTokenAbortsBeforeStarting() throws Exception {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        LintLimits limits = new LintLimits.Builder().cancellationToken(token).build();
+        JSLintResult result = lint.lint("a.js", "var a = 1", LintOptions.EMPTY, limits);
+        assertThat(result.isAborted(), is(true));
+        assertThat(result.getAbortReason(), is(AbortReason.CANCELLED));
+        assertThat(result.getName(), is("a.js"));
+        assertThat(result.getIssues(), empty());
+    }
+
+    @Test
+    public void cancelStopsARunningLint() throws Exception {
+        final JSLint jsLint = forever();
+        final CancellationToken token = new CancellationToken();
+        final LintLimits limits = new LintLimits.Builder().cancellationToken(token).build();
+        Future<JSLintResult> future = executor.submit(new Callable<JSLintResult>() {
+            public JSLintResult call() {
+                return jsLint.lint("-", "", LintOptions.EMPTY, limits);
+            }
+        });
+        Thread.sleep(50);
+        token.cancel();
+        JSLintResult result = future.get(10, TimeUnit.SECONDS);
+        assertThat(result.getAbortReason(), is(AbortReason.CANCELLED));
+    }
+
+    @Test
+    public void interruptsAreIgnoredByDefault() throws Exception {
+        Thread.currentThread().interrupt();
+        try {
+            JSLintResult result = lint.lint("a.js", "var a = 1", LintOptions.EMPTY,
+                    LintLimits.NONE);
+            assertThat(result.getIssues(), hasSize(1));
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void interruptStopsAnInterruptibleLint() throws Exception {
+        LintLimits limits = new LintLimits.Builder().interruptible().build();
+        Thread.currentThread().interrupt();
+        try {
+            lint.lint("a.js", "var a = 1", LintOptions.EMPTY, limits);
+            fail("expected a CancellationException");
+        } catch (CancellationException e) {
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void timeoutStopsARunawayLint() throws Exception {
+        LintLimits limits = new LintLimits.Builder().timeout(50, TimeUnit.MILLISECONDS).build();
+        JSLintResult result = forever().lint("-", "", LintOptions.EMPTY, limits);
+        assertThat(result.getAbortReason(), is(AbortReason.DEADLINE));
+    }
+
+    @Test
+    public void passedDeadlineAborts() throws Exception {
+        LintLimits limits = new LintLimits.Builder().deadline(System.nanoTime() - 1).build();
+        JSLintResult result = lint.lint("-", "var a = 1", LintOptions.EMPTY, limits);
+        assertThat(result.getAbortReason(), is(AbortReason.DEADLINE));
+    }
+
+    @Test
+    public void lintStillWorksAfterAnAbort() throws Exception {
+        LintLimits limits = new LintLimits.Builder().deadline(System.nanoTime() - 1).build();
+        lint.lint("-", "var a = 1", LintOptions.EMPTY, limits);
+        assertThat(lint.lint("-", "var a = 1").getIssues(), hasSize(1));
+    }
+
+    @Test
+    public void instructionBudgetStopsARunawayLint() throws Exception {
+        LintLimits limits = new LintLimits.Builder().instructionBudget(100000).build();
+        JSLintResult result = forever().lint("-", "", LintOptions.EMPTY, limits);
+        assertThat(result.getAbortReason(), is(AbortReason.INSTRUCTION_BUDGET));
+        assertThat(result.getInstructionCount(), is(greaterThan(100000L)));
+    }
+
+    @Test
+    public void instructionBudgetIsReproducible() throws Exception {
+        String js = "function f(a) {\n    'use strict';\n    return a + 1;\n}\n";
+        long used = lint.lint("-", js).getInstructionCount();
+        assertThat(used, is(greaterThan(0L)));
+        // Just enough budget passes, every time.
+        LintLimits enough = new LintLimits.Builder().instructionBudget(used).build();
+        for (int i = 0; i < 3; i++) {
+            JSLintResult result = lint.lint("-", js, LintOptions.EMPTY, enough);
+            assertThat(result.isAborted(), is(false));
+            assertThat(result.getInstructionCount(), is(used));
+        }
+        // Any less fails, every time.
+        LintLimits tooFew = new LintLimits.Builder().instructionBudget(used - 1).build();
+        for (int i = 0; i < 3; i++) {
+            JSLintResult result = lint.lint("-", js, LintOptions.EMPTY, tooFew);
+            assertThat(result.getAbortReason(), is(AbortReason.INSTRUCTION_BUDGET));
+        }
+    }
+
+    @Test
+    public void instructionBudgetCoversTheReport() throws Exception {
+        JSLint precise = new JSLintBuilder().observerQuantum(100).fromDefault();
+        String js = "function f(a) {\n    'use strict';\n    return a + 1;\n}\n";
+        precise.setResultDetail(ResultDetail.ISSUES_ONLY);
+        long lintOnly = precise.lint("-", js).getInstructionCount();
+        precise.setResultDetail(ResultDetail.FULL_REPORT);
+        assertThat(precise.lint("-", js).getInstructionCount(), is(greaterThan(lintOnly)));
+        // Enough for JSLINT(), but not for the report as well.
+        LintLimits limits = new LintLimits.Builder().instructionBudget(lintOnly).build();
+        JSLintResult result = precise.lint("-", js, LintOptions.EMPTY, limits);
+        assertThat(result.getAbortReason(), is(AbortReason.INSTRUCTION_BUDGET));
+    }
+
+    @Test
+    public void earliestOfDeadlineAndTimeoutApplies() throws Exception {
+        LintLimits limits = new LintLimits.Builder().deadline(1000)
+                .timeout(100, TimeUnit.NANOSECONDS).build();
+        assertThat(limits.deadlineFor(0), is(100L));
+        assertThat(limits.deadlineFor(950), is(1000L));
+        assertThat(LintLimits.NONE.deadlineFor(0), is(nullValue()));
+    }
+
+    @Test
+    public void poolPassesLimitsOn() throws Exception {
+        JSLintPool pool = new JSLintBuilder().poolFromReader(new StringReader(FOREVER),
+                "forever.js", 1);
+        LintLimits limits = new LintLimits.Builder().timeout(20, TimeUnit.MILLISECONDS).build();
+        JSLintResult result = pool.lint("-", "", LintOptions.EMPTY, limits);
+        assertThat(result.getAbortReason(), is(AbortReason.DEADLINE));
+    }
+
+    @Test
+    public void batchAbortsEverythingWhenCancelled() throws Exception {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        JSLintBatch batch = new JSLintBatch(new JSLintBuilder().poolFromDefault(2));
+        batch.setLimits(new LintLimits.Builder().cancellationToken(token).build());
+        Iterator<JSLintResult> results = batch.lint(ImmutableList.of(
+                LintSource.fromString("a.js", "var a = 1"),
+                LintSource.fromString("b.js", "var b = 1")));
+        assertThat(results.next().getAbortReason(), is(AbortReason.CANCELLED));
+        assertThat(results.next().getAbortReason(), is(AbortReason.CANCELLED));
+    }
+}
@@ -0,0 +1,75 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LintOptionsTest {
+
+    @Test
+    public void builderCopiesBase() throws Exception {
+        LintOptions base = new LintOptions.Builder().addOption(Option.WHITE).build();
+        LintOptions options = new LintOptions.Builder(base).addOption(Option.EVIL).build();
+        assertThat(options.getOptions(), contains(Option.EVIL, Option.WHITE));
+        assertThat(base.getOptions(), contains(Option.WHITE));
+    }
+
+    @Test
+    public void equalOptionsAreEqual() throws Exception {
+        LintOptions a = new LintOptions.Builder().addOption(Option.PREDEF, "a,b")
+                .addOption(Option.INDENT, "2").build();
+        LintOptions b = new LintOptions.Builder().addOption(Option.INDENT, "2")
+                .addOption(Option.PREDEF, "a, b").build();
+        assertThat(a, is(b));
+        assertThat(a.hashCode(), is(b.hashCode()));
+    }
+
+    @Test
+    public void differentValuesAreNotEqual() throws Exception {
+        LintOptions a = new LintOptions.Builder().addOption(Option.PREDEF, "a").build();
+        LintOptions b = new LintOptions.Builder().addOption(Option.PREDEF, "b").build();
+        assertThat(a, is(not(b)));
+    }
+
+    @Test
+    public void getReturnsParsedValues() throws Exception {
+        LintOptions options = new LintOptions.Builder().addOption(Option.WHITE)
+                .addOption(Option.INDENT, "2").addOption(Option.PREDEF, "a,b").build();
+        assertThat((Boolean) options.get(Option.WHITE), is(true));
+        assertThat((Integer) options.get(Option.INDENT), is(2));
+        assertThat((String[]) options.get(Option.PREDEF), arrayContaining("a", "b"));
+        assertThat(options.get(Option.EVIL), is(nullValue()));
+    }
+
+    @Test
+    public void arraysCannotBeChangedFromOutside() throws Exception {
+        LintOptions options = new LintOptions.Builder().addOption(Option.PREDEF, "a").build();
+        ((String[]) options.get(Option.PREDEF))[0] = "b";
+        assertThat((String[]) options.get(Option.PREDEF), arrayContaining("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void optionSetIsReadOnly() throws Exception {
+        LintOptions.EMPTY.getOptions().add(Option.WHITE);
+    }
+
+    @Test
+    public void removeOption() throws Exception {
+        LintOptions options = new LintOptions.Builder().addOption(Option.WHITE)
+                .removeOption(Option.WHITE).build();
+        assertThat(options, is(LintOptions.EMPTY));
+        assertThat(options.isEmpty(), is(true));
+    }
+
+    @Test
+    public void toStringShowsValues() throws Exception {
+        LintOptions options = new LintOptions.Builder().addOption(Option.WHITE)
+                .addOption(Option.PREDEF, "a,b").build();
+        assertThat(options.toString(), is("{predef=[a, b], white=true}"));
+    }
+}
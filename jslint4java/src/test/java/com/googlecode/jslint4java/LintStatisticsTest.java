@@ -0,0 +1,117 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LintStatisticsTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final LintStatistics stats = new LintStatistics();
+
+    private final JSLintPool pool = new JSLintBuilder().poolFromDefault(1);
+
+    @Test
+    public void everyPhaseIsTimed() throws Exception {
+        pool.setMetrics(stats);
+        pool.lint("a.js", "var a = 1");
+        for (LintPhase phase : LintPhase.values()) {
+            long expected = phase == LintPhase.FORMAT ? 0 : 1;
+            assertThat(phase.name(), stats.getCount(phase.name()), is(expected));
+        }
+        assertThat(stats.getLintCount(), is(1L));
+        assertThat(stats.getIssueCount(), is(1L));
+        assertThat(stats.getSourceLength(), is(9L));
+        assertThat(stats.getTotalNanos("LINT"), is(greaterThan(0L)));
+        assertThat(stats.getTotalNanos(LintStatistics.TOTAL),
+                is(greaterThan(stats.getTotalNanos("LINT"))));
+    }
+
+    @Test
+    public void phasesWhichAreSkippedAreNotTimed() throws Exception {
+        pool.setMetrics(stats);
+        pool.setResultDetail(ResultDetail.ISSUES_ONLY);
+        pool.lint("a.js", "var a = 1;");
+        assertThat(stats.getCount("ISSUES"), is(1L));
+        assertThat(stats.getCount("DATA"), is(0L));
+        assertThat(stats.getCount("REPORT"), is(0L));
+    }
+
+    @Test
+    public void abortedLintsAreCounted() throws Exception {
+        JSLint lint = new JSLintBuilder().fromDefault();
+        lint.setMetrics(stats);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        lint.lint("a.js", "var a = 1;", LintOptions.EMPTY,
+                new LintLimits.Builder().cancellationToken(token).build());
+        assertThat(stats.getLintCount(), is(1L));
+        assertThat(stats.getAbortedCount(), is(1L));
+        assertThat(stats.getCount("LINT"), is(0L));
+    }
+
+    @Test
+    public void noMetricsMeansNothingIsRecorded() throws Exception {
+        pool.setMetrics(stats);
+        pool.setMetrics(null);
+        pool.lint("a.js", "var a = 1;");
+        assertThat(stats.getLintCount(), is(0L));
+    }
+
+    @Test
+    public void resetForgetsEverything() throws Exception {
+        pool.setMetrics(stats);
+        pool.lint("a.js", "var a = 1");
+        stats.reset();
+        assertThat(stats.getLintCount(), is(0L));
+        assertThat(stats.getIssueCount(), is(0L));
+        assertThat(stats.getCount("LINT"), is(0L));
+    }
+
+    @Test
+    public void unknownPhasesAreRejected() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        stats.getCount("LUNCH");
+    }
+
+    @Test
+    public void summaryListsEveryPhase() throws Exception {
+        pool.setMetrics(stats);
+        pool.lint("a.js", "var a = 1");
+        String summary = stats.getSummary();
+        assertThat(summary, containsString("1 lints, 0 aborted, 9 chars, 1 issues"));
+        for (LintPhase phase : LintPhase.values()) {
+            assertThat(summary, containsString(phase.name()));
+        }
+        assertThat(summary, containsString(LintStatistics.TOTAL));
+    }
+
+    @Test
+    public void canBeReadOverJmx() throws Exception {
+        ObjectName name = stats.register("test");
+        try {
+            pool.setMetrics(stats);
+            pool.lint("a.js", "var a = 1");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertThat((Long) server.getAttribute(name, "LintCount"), is(1L));
+            Object count = server.invoke(name, "getCount", new Object[] { "LINT" },
+                    new String[] { String.class.getName() });
+            assertThat((Long) count, is(1L));
+        } finally {
+            stats.unregister();
+        }
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), is(false));
+    }
+}
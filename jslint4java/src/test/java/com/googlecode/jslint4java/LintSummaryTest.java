@@ -0,0 +1,88 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.googlecode.jslint4java.JSLintResult.ResultBuilder;
+import com.googlecode.jslint4java.LintSummary.FileTiming;
+
+public class LintSummaryTest {
+
+    private static JSLintResult result(String name, long instructions) {
+        return new ResultBuilder(name).instructionCount(instructions).build();
+    }
+
+    private final LintSummary summary = new LintSummary(2);
+
+    @Test
+    public void keepsOnlyTheSlowestFiles() throws Exception {
+        summary.lintCompleted("a.js", 10, result("a.js", 100), 3000000);
+        summary.lintCompleted("b.js", 20, result("b.js", 200), 1000000);
+        summary.lintCompleted("c.js", 30, result("c.js", 300), 5000000);
+        List<FileTiming> slowest = summary.getSlowest();
+        assertThat(slowest, hasSize(2));
+        assertThat(slowest.get(0).getSystemId(), is("c.js"));
+        assertThat(slowest.get(0).getSourceLength(), is(30));
+        assertThat(slowest.get(0).getInstructionCount(), is(300L));
+        assertThat(slowest.get(1).getSystemId(), is("a.js"));
+        assertThat(summary.getLintCount(), is(3L));
+        assertThat(summary.getLintNanos(), is(9000000L));
+        assertThat(summary.getSourceLength(), is(60L));
+    }
+
+    @Test
+    public void zeroSlowestListsNoFiles() throws Exception {
+        LintSummary none = new LintSummary(0);
+        none.lintCompleted("a.js", 10, result("a.js", 100), 3000000);
+        assertThat(none.getSlowest(), hasSize(0));
+        assertThat(none.getLintCount(), is(1L));
+        assertThat(none.format(), not(containsString("Slowest")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSlowestIsRejected() throws Exception {
+        new LintSummary(-1);
+    }
+
+    @Test
+    public void wallTimeStopsAtFinish() throws Exception {
+        summary.startupCompleted();
+        Thread.sleep(5);
+        summary.finish();
+        long wall = summary.getWallNanos();
+        assertThat(wall, is(greaterThan(summary.getStartupNanos())));
+        Thread.sleep(5);
+        assertThat(summary.getWallNanos(), is(wall));
+    }
+
+    @Test
+    public void collectsFromAPool() throws Exception {
+        JSLintPool pool = new JSLintBuilder().poolFromDefault(1);
+        summary.startupCompleted();
+        pool.setMetrics(summary);
+        pool.lint("a.js", "var a = 1;");
+        summary.finish();
+        assertThat(summary.getLintCount(), is(1L));
+        assertThat(summary.getSlowest().get(0).getInstructionCount(), is(greaterThan(0L)));
+        assertThat(summary.getParallelism(), is(greaterThan(0.0)));
+        assertThat(summary.format(), containsString("Linted 1 files (10 chars)"));
+        assertThat(summary.format(), containsString("a.js"));
+    }
+
+    @Test
+    public void xmlIsEscaped() throws Exception {
+        summary.lintCompleted("a&<b>'.js", 10, result("a.js", 100), 1500000);
+        String xml = summary.toXml();
+        assertThat(xml, containsString("<summary files='1' chars='10'"));
+        assertThat(xml, containsString("<file name='a&amp;&lt;b&gt;&apos;.js' chars='10'"
+                + " instructions='100' time='1.5'/>"));
+    }
+}
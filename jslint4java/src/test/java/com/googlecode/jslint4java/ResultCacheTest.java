@@ -0,0 +1,176 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class ResultCacheTest {
+
+    private static final String JS = "var a = 'lint this'";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final JSLint lint = new JSLintBuilder().fromDefault();
+
+    private File onlyRecord(File dir) {
+        File[] files = dir.listFiles();
+        assertThat(files.length, is(1));
+        return files[0];
+    }
+
+    @Test
+    public void resultsSurviveANewInstance() throws Exception {
+        File dir = tmp.newFolder("cache");
+        new ResultCache(dir).lint(lint, "a.js", JS);
+        ResultCache cache = new ResultCache(dir);
+        JSLintResult result = cache.lint(lint, "b.js", JS);
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(0L));
+        assertThat(result.getName(), is("b.js"));
+        assertThat(result.getIssues(), hasSize(1));
+        Issue issue = result.getIssues().get(0);
+        assertThat(issue.getSystemId(), is("b.js"));
+        assertThat(issue.getReason(), is("Expected ';' and instead saw '(end)'."));
+        assertThat(issue.getEvidence(), is(JS));
+    }
+
+    @Test
+    public void roundTripsAFullResult() throws Exception {
+        JSLintResult result = lint.lint("a.js", "function f(a) { var b = 1; return a; }");
+        JSLintResult copy = ResultCache.decode("a.js", ResultCache.encode(result));
+        assertThat(copy.getReport(), is(result.getReport()));
+        assertThat(copy.getGlobals(), is(result.getGlobals()));
+        assertThat(copy.getProperties(), is(result.getProperties()));
+        assertThat(copy.getFunctions(), hasSize(result.getFunctions().size()));
+        JSFunction f = copy.getFunctions().get(0);
+        assertThat(f.getName(), is("f"));
+        assertThat(f.getParams(), is(result.getFunctions().get(0).getParams()));
+        assertThat(f.getUnused(), is(result.getFunctions().get(0).getUnused()));
+    }
+
+    @Test
+    public void roundTripsEvidence() throws Exception {
+        lint.setEvidenceWidth(8);
+        JSLintResult result = lint.lint("a.js", "var a = 1, b = a == 1, c = b == 2");
+        JSLintResult copy = ResultCache.decode("a.js", ResultCache.encode(result));
+        assertThat(copy.getIssues(), hasSize(result.getIssues().size()));
+        for (int i = 0; i < result.getIssues().size(); i++) {
+            Issue issue = result.getIssues().get(i);
+            Issue copied = copy.getIssues().get(i);
+            assertThat(copied.getEvidence(), is(issue.getEvidence()));
+            assertThat(copied.getEvidenceOffset(), is(issue.getEvidenceOffset()));
+        }
+    }
+
+    @Test
+    public void evidenceIsStillSharedAfterDecoding() throws Exception {
+        JSLintResult result = lint.lint("a.js", "var a = 1, b = a == 1, c = b == 2");
+        List<Issue> issues = ResultCache.decode("a.js", ResultCache.encode(result)).getIssues();
+        assertThat(issues.get(1).getEvidence(), is(sameInstance(issues.get(0).getEvidence())));
+    }
+
+    @Test
+    public void evidenceWidthIsPartOfTheKey() throws Exception {
+        ResultCache cache = new ResultCache(tmp.newFolder("cache"));
+        String whole = cache.key(lint, JS);
+        lint.setEvidenceWidth(8);
+        assertThat(cache.key(lint, JS), is(not(whole)));
+    }
+
+    @Test
+    public void jslintItselfIsPartOfTheKey() throws Exception {
+        String stub = "function JSLINT() { JSLINT.errors = []; return true; }\n"
+                + "JSLINT.edition = 'stub';\n";
+        JSLintBuilder builder = new JSLintBuilder();
+        JSLint original = builder.fromReader(new StringReader(stub), "a.js");
+        JSLint changed = builder.fromReader(new StringReader(stub + "// changed\n"), "b.js");
+        // The edition hasn't been updated to match.
+        assertThat(changed.getEdition(), is(original.getEdition()));
+        ResultCache cache = new ResultCache(tmp.newFolder("cache"));
+        assertThat(cache.key(changed, JS), is(not(cache.key(original, JS))));
+    }
+
+    @Test
+    public void optionsArePartOfTheKey() throws Exception {
+        ResultCache cache = new ResultCache(tmp.newFolder("cache"));
+        String evalJs = "eval('1');";
+        assertThat(cache.lint(lint, "-", evalJs).getIssues(), hasSize(1));
+        lint.addOption(Option.EVIL);
+        assertThat(cache.lint(lint, "-", evalJs).getIssues(), empty());
+        assertThat(cache.getMissCount(), is(2L));
+    }
+
+    @Test
+    public void corruptRecordsAreIgnoredAndRemoved() throws Exception {
+        File dir = tmp.newFolder("cache");
+        ResultCache cache = new ResultCache(dir);
+        cache.lint(lint, "a.js", JS);
+        File record = onlyRecord(dir);
+        byte[] bytes = Files.toByteArray(record);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(bytes, record);
+        assertThat(cache.get(cache.key(lint, JS), "a.js"), is(nullValue()));
+        assertThat(record.exists(), is(false));
+        // And it gets linted again.
+        assertThat(cache.lint(lint, "a.js", JS).getIssues(), hasSize(1));
+        assertThat(cache.getMissCount(), is(2L));
+    }
+
+    @Test
+    public void truncatedRecordsAreIgnored() throws Exception {
+        File dir = tmp.newFolder("cache");
+        ResultCache cache = new ResultCache(dir);
+        cache.lint(lint, "a.js", JS);
+        Files.write("JLR", onlyRecord(dir), Charsets.UTF_8);
+        assertThat(cache.get(cache.key(lint, JS), "a.js"), is(nullValue()));
+    }
+
+    @Test
+    public void evictsWhenTooBig() throws Exception {
+        File dir = tmp.newFolder("cache");
+        long max = 1024;
+        ResultCache cache = new ResultCache(dir, max);
+        for (int i = 0; i < 50; i++) {
+            cache.lint(lint, "-", "var a" + i + " = 'lint this'");
+        }
+        assertThat(directorySize(dir), is(lessThanOrEqualTo(max)));
+        // The most recent is still there.
+        cache.lint(lint, "-", "var a49 = 'lint this'");
+        assertThat(cache.getHitCount(), is(1L));
+    }
+
+    @Test
+    public void unwritableDirectoryJustLints() throws IOException {
+        File file = tmp.newFile("not-a-dir");
+        ResultCache cache = new ResultCache(file);
+        assertThat(cache.lint(lint, "a.js", JS).getIssues(), hasSize(1));
+        assertThat(cache.lint(lint, "a.js", JS).getIssues(), hasSize(1));
+        assertThat(cache.getMissCount(), is(2L));
+    }
+
+    private long directorySize(File dir) {
+        long size = 0;
+        for (File file : dir.listFiles()) {
+            size += file.length();
+        }
+        return size;
+    }
+}
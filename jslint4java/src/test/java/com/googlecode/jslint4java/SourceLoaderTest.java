@@ -0,0 +1,102 @@
+package com.googlecode.jslint4java;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+
+public class SourceLoaderTest {
+
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final SourceLoader loader = new SourceLoader(Charsets.UTF_8);
+
+    private byte[] bytes(byte[] prefix, String text, String encoding) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(prefix);
+        out.write(text.getBytes(encoding));
+        return out.toByteArray();
+    }
+
+    private File file(byte[] content) throws Exception {
+        File file = tmp.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(content);
+        out.close();
+        return file;
+    }
+
+    @Test
+    public void readsPlainFile() throws Exception {
+        assertThat(loader.load(file("var é = 1;".getBytes("UTF-8"))), is("var é = 1;"));
+    }
+
+    @Test
+    public void readsEmptyFile() throws Exception {
+        assertThat(loader.load(file(new byte[0])), is(""));
+    }
+
+    @Test
+    public void skipsUtf8Bom() throws Exception {
+        assertThat(loader.load(file(bytes(UTF8_BOM, "alert(1);", "UTF-8"))), is("alert(1);"));
+    }
+
+    @Test
+    public void bomDoesNotOverrideEncoding() throws Exception {
+        SourceLoader latin1 = new SourceLoader(Charsets.ISO_8859_1);
+        assertThat(latin1.load(file(bytes(UTF8_BOM, "var é;", "ISO-8859-1"))), is("var é;"));
+    }
+
+    @Test
+    public void skipsUtf16Bom() throws Exception {
+        SourceLoader utf16 = new SourceLoader(Charsets.UTF_16LE);
+        byte[] content = bytes(new byte[] { (byte) 0xFF, (byte) 0xFE }, "alert(1);", "UTF-16LE");
+        assertThat(utf16.load(file(content)), is("alert(1);"));
+    }
+
+    @Test
+    public void usesGivenEncodingWithoutBom() throws Exception {
+        SourceLoader latin1 = new SourceLoader(Charsets.ISO_8859_1);
+        assertThat(latin1.load(file(new byte[] { 'a', (byte) 0xE9 })), is("aé"));
+    }
+
+    @Test
+    public void replacesMalformedInput() throws Exception {
+        assertThat(loader.load(file(new byte[] { 'a', (byte) 0xFF, 'b' })), is("a�b"));
+    }
+
+    @Test
+    public void readsLargeFile() throws Exception {
+        String text = Strings.repeat("var a = 1;\n", 100000);
+        String loaded = loader.load(file(bytes(UTF8_BOM, text, "UTF-8")));
+        assertThat(loaded.length(), is(text.length()));
+        assertThat(loaded, startsWith("var a = 1;"));
+    }
+
+    @Test
+    public void readsStream() throws Exception {
+        String text = Strings.repeat("alert(42);\n", 2000);
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes(UTF8_BOM, text, "UTF-8"));
+        assertThat(loader.load(in), is(text));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingFileThrows() throws Exception {
+        loader.load(new File(tmp.getRoot(), "missing.js"));
+    }
+}
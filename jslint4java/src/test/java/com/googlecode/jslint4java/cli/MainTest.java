@@ -17,6 +17,8 @@ import org.junit.rules.TemporaryFolder;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import com.googlecode.jslint4java.JSLintBuilder;
 import com.googlecode.jslint4java.cli.Main.DieException;
@@ -110,6 +112,56 @@ public class MainTest {
         assertLintOutput(exit, 0, NO_OUTPUT, NO_OUTPUT);
     }
 
+    @Test
+    public void testCacheDir() throws Exception {
+        File cacheDir = new File(tempFolder.getRoot(), "cache");
+        String path = pathTo("bad.js");
+        runLint("--cache-dir", cacheDir.getPath(), path);
+        assertThat(cacheDir.list().length, is(1));
+        // A second run reads the cached result, and should produce identical output.
+        int exit = new Main().run(new String[] { "--cache-dir", cacheDir.getPath(), path });
+        List<String> expected = expectedDefaultReportForBadJs(path);
+        assertLintOutput(exit, 1, Lists.newArrayList(Iterables.concat(expected, expected)),
+                NO_OUTPUT);
+    }
+
+    @Test
+    public void testSummary() throws Exception {
+        String bad = pathTo("bad.js");
+        String good = pathTo("good.js");
+        int exit = runLint("--summary", "1", bad, good);
+        assertThat(exit, is(1));
+        // The report is untouched; the summary goes to stderr.
+        assertThat(stdio.getStdout(), is(Joiner.on(NEWLINE).join(
+                maybeAddTrailer(expectedDefaultReportForBadJs(bad)))));
+        String summary = stdio.getStderr();
+        assertThat(summary, startsWith("Linted 2 files"));
+        assertThat(summary, containsString("effective parallelism"));
+        assertThat(summary, containsString("Slowest files:"));
+        // Only one of the two files is listed.
+        assertThat(summary.contains(bad) ^ summary.contains(good), is(true));
+    }
+
+    @Test
+    public void testThreadsKeepOutputInOrder() throws Exception {
+        String bad = pathTo("bad.js");
+        File copy = tempFolder.newFile("copy.js");
+        Files.copy(new File(bad), copy);
+        String path = copy.getAbsolutePath();
+        int exit = runLint("--threads", "3", bad, pathTo("good.js"), path, bad);
+        List<String> expected = Lists.newArrayList(Iterables.concat(
+                expectedDefaultReportForBadJs(bad), expectedDefaultReportForBadJs(path),
+                expectedDefaultReportForBadJs(bad)));
+        assertLintOutput(exit, 1, expected, NO_OUTPUT);
+    }
+
+    @Test
+    public void testThreadsMustBePositive() throws Exception {
+        kaboom.expect(DieException.class);
+        kaboom.expectMessage(is("--threads must be at least 1"));
+        runLint("--threads", "0", pathTo("good.js"));
+    }
+
     @Test
     public void testFileNotFound() throws Exception {
         kaboom.expect(DieException.class);
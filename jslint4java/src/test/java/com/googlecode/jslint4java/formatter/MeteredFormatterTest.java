@@ -0,0 +1,23 @@
+package com.googlecode.jslint4java.formatter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.googlecode.jslint4java.JSLintResult;
+import com.googlecode.jslint4java.LintStatistics;
+
+public class MeteredFormatterTest {
+
+    @Test
+    public void formattingIsTimed() {
+        LintStatistics stats = new LintStatistics();
+        PlainFormatter plain = new PlainFormatter();
+        JSLintResultFormatter form = new MeteredFormatter(plain, stats);
+        JSLintResult result = new JSLintResult.ResultBuilder("a.js").build();
+        assertThat(form.format(result), is(plain.format(result)));
+        assertThat(form.header(), is(plain.header()));
+        assertThat(stats.getCount("FORMAT"), is(1L));
+    }
+}
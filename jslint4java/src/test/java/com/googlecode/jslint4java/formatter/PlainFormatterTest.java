@@ -27,6 +27,20 @@ public class PlainFormatterTest {
         assertThat(rf.format(result), is(sb.toString()));
     }
 
+    @Test
+    public void shouldPointIntoAnExcerpt() throws Exception {
+        String nl = System.getProperty("line.separator");
+        String name = "foo/bar.js";
+        Issue issue = new IssueBuilder(name, 1, 11, "oops").evidence("0123456789abcdefghij")
+                .evidenceWidth(6).build();
+        JSLintResult result = new JSLintResult.ResultBuilder(name).addIssue(issue).build();
+        StringBuilder sb = new StringBuilder(name);
+        sb.append(":1:11: oops").append(nl);
+        sb.append("789abc").append(nl);
+        sb.append("   ^").append(nl);
+        assertThat(rf.format(result), is(sb.toString()));
+    }
+
     @Test
     public void shouldEmitNullFooter() {
         assertThat(rf.footer(), is(nullValue()));